@@ -0,0 +1,93 @@
+import java.util.Random;
+
+/** Prepares positions of the engine for the benchmarks of takbench, which reach it through takbench.Fixture because
+ * they can't refer to classes of the unnamed package. The positions are reached by random moves from a fixed seed,
+ * so every run measures the same ones. */
+public class EngineFixture implements takbench.Fixture {
+
+	public static final long SEED = 20160401;
+	public static final int OPENING_PLIES = 4;
+	public static final int MIDGAME_PLIES = 20;
+	public static final int ENDGAME_STONES = 3;  // stones left in the reserve of a player at the endgame position
+
+	private static final Board.Direction[] DIRECTIONS = Board.Direction.values();
+
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+	private State state;
+	private Board board;
+	private Stone.Color color;            // color of the player to move
+	private Player.Strategy strategy;     // strategy of evaluate
+	private int stackMove;                // code of a legal stack move of the player to move, Move.NO_MOVE if none
+
+	public void setUp(String phase, String strategy) {
+		Random random = new Random(SEED);
+		do {
+			state = newState();
+			while (state.getStatus(state.getPrevPlayer()) == State.GameStatus.ONGOING && !reached(phase)) {
+				state.applyMove(moves[random.nextInt(MoveGenerator.generate(state, moves))]);
+			}
+		} while (state.getStatus(state.getPrevPlayer()) != State.GameStatus.ONGOING);
+		board = state.getBoard();
+		color = state.getNextPlayer().getColor();
+		this.strategy = strategy == null ? null : Player.Strategy.valueOf(strategy);
+		int n = MoveGenerator.generateStackMoves(state, moves, 0);
+		stackMove = n == 0 ? Move.NO_MOVE : moves[0];
+	}
+
+	/** Return a new game with two random players. */
+	private static State newState() {
+		State s = new State();
+		s.addPlayers(new AIPlayer(Stone.Color.WHITE, s, Player.Strategy.RANDOM, 0),
+				new AIPlayer(Stone.Color.BLACK, s, Player.Strategy.RANDOM, 0));
+		return s;
+	}
+
+	/** Return true if the game has reached the position of phase phase. */
+	private boolean reached(String phase) {
+		switch (phase) {
+		case OPENING:
+			return state.getPlies() >= OPENING_PLIES;
+		case MIDGAME:
+			return state.getPlies() >= MIDGAME_PLIES;
+		case ENDGAME:
+			return Math.min(state.getPlayer1().getStones(), state.getPlayer2().getStones()) <= ENDGAME_STONES;
+		default:
+			throw new IllegalArgumentException("unknown phase " + phase);
+		}
+	}
+
+	public Object cloneBoard() {
+		return board.clone();
+	}
+
+	public Object moveStack() {
+		// the first moves of a game place stones, so a position may have no stack of the player to move
+		if (stackMove == Move.NO_MOVE) return board;
+		int sq = MoveTable.square(stackMove);
+		int d = MoveTable.direction(stackMove);
+		int[] drops = MoveTable.drops(stackMove);
+		BitBoard b = board.bits();
+		b.save(sq, MoveTable.STEPS[d], drops.length + 1);
+		board.moveStack(MoveTable.carry(stackMove), DIRECTIONS[d], drops, sq / BitBoard.SIZE,
+				sq % BitBoard.SIZE);
+		b.undo();
+		return board;
+	}
+
+	public Object getStatus() {
+		return state.getStatus(state.getPrevPlayer());
+	}
+
+	public Object toGraph() {
+		return board.toGraph(color);
+	}
+
+	public float evaluate() {
+		return AIPlayer.evaluate(state, color, strategy);
+	}
+
+	public int generateMoves() {
+		return MoveGenerator.generate(state, moves);
+	}
+
+}
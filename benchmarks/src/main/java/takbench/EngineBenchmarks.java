@@ -0,0 +1,62 @@
+package takbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the core operations of the engine on a fixed opening, midgame, and endgame position. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmarks {
+
+	@Param({Fixture.OPENING, Fixture.MIDGAME, Fixture.ENDGAME})
+	public String phase;
+
+	private Fixture fixture;
+
+	@Setup
+	public void setUp() {
+		fixture = Fixture.load();
+		fixture.setUp(phase, null);
+	}
+
+	@Benchmark
+	public Object boardClone() {
+		return fixture.cloneBoard();
+	}
+
+	@Benchmark
+	public Object boardMoveStack() {
+		return fixture.moveStack();
+	}
+
+	@Benchmark
+	public Object stateGetStatus() {
+		return fixture.getStatus();
+	}
+
+	@Benchmark
+	public Object boardToGraph() {
+		return fixture.toGraph();
+	}
+
+	@Benchmark
+	public int generateMoves() {
+		return fixture.generateMoves();
+	}
+
+}
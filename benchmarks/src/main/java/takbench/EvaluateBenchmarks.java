@@ -0,0 +1,47 @@
+package takbench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures AIPlayer.evaluate for each strategy that has an evaluation, on a fixed opening, midgame, and endgame
+ * position. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluateBenchmarks {
+
+	@Param({Fixture.OPENING, Fixture.MIDGAME, Fixture.ENDGAME})
+	public String phase;
+
+	@Param({"RANDOM", "SELFISH", "ATTACKER", "SELFISH_ATTACKER", "GATHERER", "CLUSTERBUILDER",
+			"CLUSTERBUILDER_GATHERER"})
+	public String strategy;
+
+	private Fixture fixture;
+
+	@Setup
+	public void setUp() {
+		fixture = Fixture.load();
+		fixture.setUp(phase, strategy);
+	}
+
+	@Benchmark
+	public float evaluate() {
+		return fixture.evaluate();
+	}
+
+}
@@ -0,0 +1,44 @@
+package takbench;
+
+/** The engine operations that the benchmarks measure, on a position prepared by setUp. The engine lives in the
+ * unnamed package, which JMH benchmarks cannot refer to, so the operations are reached through this interface and an
+ * implementation in the unnamed package (EngineFixture), whose single implementation the JIT inlines. */
+public interface Fixture {
+
+	/** Phases of a game that positions are taken from. */
+	String OPENING = "OPENING";
+	String MIDGAME = "MIDGAME";
+	String ENDGAME = "ENDGAME";
+
+	/** Prepare the position of phase phase, which is the same on every run, and the strategy named strategy for
+	 * evaluate, or no strategy if it is null. */
+	void setUp(String phase, String strategy);
+
+	/** Return a clone of the board. */
+	Object cloneBoard();
+
+	/** Move a stack of the player to move with Board.moveStack, undo the move, and return the board. */
+	Object moveStack();
+
+	/** Return the status of the game. */
+	Object getStatus();
+
+	/** Return the graph of the paths of the player to move. */
+	Object toGraph();
+
+	/** Return the evaluation of the position for the player to move with the strategy of setUp. */
+	float evaluate();
+
+	/** Generate every legal move of the player to move and return how many there are. */
+	int generateMoves();
+
+	/** Return a new instance of the fixture of the engine. */
+	static Fixture load() {
+		try {
+			return (Fixture) Class.forName("EngineFixture").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("can't load the engine fixture", e);
+		}
+	}
+
+}
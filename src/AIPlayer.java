@@ -1,29 +1,11 @@
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map.Entry;
-import java.util.PriorityQueue;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 /** An instance represents an AI that can play Tak. */
 public class AIPlayer extends Player {
 
-	/** An instance represents a state, the move required to get to this state, and the heuristic evaluation of this
-	 * state. */
-	protected static class MoveStateEval implements Cloneable {
-		public Move move;
-		public State state;
-		public double eval;
-		public MoveStateEval(Move move, State state, double eval) {
-			this.move = move;
-			this.state = state;
-			this.eval = eval;
-		}
-		public MoveStateEval clone() {
-			return new MoveStateEval(move, state, eval);
-		}
-	}
-
 	/* Hard-coded permutations of partitions of 1 through 5 with maximal length 4. The 0th element is an empty
 	 * placeholder. */
 	public static final String[][] PARTITIONS = new String[][] {
@@ -37,51 +19,74 @@ public class AIPlayer extends Player {
 	public static final char[] DIRECTIONS = new char[] {'+', '-', '<', '>'};
 	public static final Random RANDOM = new Random();
 
+	public static final int DEFAULT_TABLE_MEGABYTES = 32;  // memory budget of the transposition table
+	public static final int MAX_DEPTH = 64;  // deepest iteration of a search with a time budget
+	public static final int MOVES_TO_GO = 20;  // number of moves the game clock is spread over
+	private static final int CHECK_INTERVAL = 1024;  // nodes searched between looks at the clock
+	public static final double ASPIRATION_WINDOW = 8;  // half the width of the first aspiration window
+	public static final int ASPIRATION_DEPTH = 3;  // shallowest iteration searched with an aspiration window
+	public static final int QUIESCENCE_DEPTH = 8;  // most plies searched past the horizon
+	public static final long DEFAULT_QUIESCENCE_NODES = 100000;  // nodes past the horizon allowed in each search
+	public static final int DEFAULT_TINUE_NODES = 20000;  // nodes of the tinue solver before each search
+	public static final int TINUE_PLIES = 7;  // deepest win the tinue solver looks for
+	public static final long PLAYOUTS_PER_LEVEL = 5000;  // playouts of each move of an MCTS player, per level of depth
+	public static final int NULL_MOVE_DEPTH = 3;  // shallowest depth at which a pass is tried
+	public static final int NULL_MOVE_REDUCTION = 2;  // plies the search after a pass is reduced by
+	public static final int NULL_MOVE_STONES = 5;  // most stones in reserve at which a player may not pass
+	public static final int LATE_MOVE_DEPTH = 3;  // shallowest depth at which late moves are reduced
+	public static final int LATE_MOVE_COUNT = 4;  // moves searched at full depth before the rest are reduced
+	private static final double WIN = (float) Integer.MAX_VALUE;  // value of a won game, as evaluate gives it
+
+	private int tableMegabytes = DEFAULT_TABLE_MEGABYTES;
+	private long salt = RANDOM.nextLong();  // varies the noise of evaluations from one player to the next
+	private TranspositionTable table;  // allocated on the first search so that clones of this player do not have one
+	private Searcher[] searchers;      // searchers of the last search, kept so that their pickers are reused
+
+	private int threads = 1;                // number of threads that search each move
+	private boolean principalVariation = true;  // false to search every move with the full window
+	private boolean nullMove = true;        // false to never prune by passing
+	private boolean lateMoveReductions = true;  // false to search every move to the full depth
+	private long quiescenceBudget = DEFAULT_QUIESCENCE_NODES;  // nodes past the horizon in each search, 0 for none
+	private int tinueNodes = DEFAULT_TINUE_NODES;  // node limit of the tinue solver, 0 to not use it
+	private TinueSolver solver;                    // allocated on the first search that uses it
+	private volatile MonteCarloSearch monteCarlo;  // tree of an MCTS player, kept between moves
+	private long playouts;                  // playouts of each move of an MCTS player, 0 for depth * PLAYOUTS_PER_LEVEL
+	private long moveMillis;                // time budget of each move, 0 to search to depth without a budget
+	private long clockMillis = -1;          // time left on the game clock of this player, -1 if there is no clock
+	private volatile boolean timed;         // true if the current search has a deadline
+	private volatile long deadline;         // System.nanoTime() at which the current search stops
+	private volatile boolean stopped;       // true if the current search ran out of time or is done
+	private volatile boolean stopRequested;  // true if stopSearch was called since the last search ended
+	private int completedDepth;             // depth of the deepest iteration the last search completed
+	private volatile SearchStats lastStats;  // statistics of the last search, null if there has been none
+	private boolean ponder;                 // true to search the expected reply while the other player thinks
+	private volatile Ponder pondering;      // search of the expected position after the last move, null if none
+	private volatile Ponder finishing;      // ponder whose move is being waited for, null if none
+	private int nextMove = Move.NO_MOVE;    // move for the next makeMove to make, Move.NO_MOVE to choose one
+
 	public AIPlayer(Stone.Color c, State s, Strategy strategy, int depth) {
 		super(c, s, strategy, depth);
 	}
 
-	/** Return true if the (row,col) cell is empty or owned by the next player. */
-	private static boolean canModify(State state, int row, int col) {
-		Stone top = state.getBoard().topStone(row, col);
-		return top == null || top.getColor() == state.getNextPlayer().color;
-	}
-
-	/** Return a copy of the state that results from having the next player making the move m. We update everything
-	 * about the new state when the new move is made. The original state is unmodified. Throws IllegalMove if the move
-	 * is not legal. */
-	private static State childState(State state, Move m) {
-		state = state.clone();
-		switch (m.getMoveType()) {
-		case PLACE_FLAT_STONE:
-			if (state.getNextPlayer().stones == 0) throw new Board.IllegalMove("no more regular stones");
-			state.getBoard().addStone(new Stone(state.getNextPlayer().color, Stone.Type.REGULAR, Stone.Status.FLAT),
-					m.getRow(), m.getCol());
-			state.getNextPlayer().stones--;
-			break;
-		case PLACE_STANDING_STONE:
-			if (state.getNextPlayer().stones == 0) throw new Board.IllegalMove("no more regular stones");
-			state.getBoard().addStone(new Stone(state.getNextPlayer().color, Stone.Type.REGULAR, Stone.Status.STANDING),
-					m.getRow(), m.getCol());
-			state.getNextPlayer().stones--;
-			break;
-		case PLACE_CAPSTONE:
-			if (state.getNextPlayer().capstones == 0) throw new Board.IllegalMove("no more capstones");
-			state.getBoard().addStone(new Stone(state.getNextPlayer().color, Stone.Type.CAPSTONE, Stone.Status.STANDING),
-					m.getRow(), m.getCol());
-			state.getNextPlayer().capstones--;
-			break;
-		case MOVE_STACK:
-			if (!canModify(state, m.getRow(), m.getCol())) throw new Board.IllegalMove("you can't move the stack here");
-			state.getBoard().moveStack(m.getN(), m.getDirection(), m.getDrops(), m.getRow(), m.getCol());
-		}
-		state.swapNextPlayer();
-		state.incPlies();
-		return state;
+	/** Return the total number of stones in stacks owned by the player with color c minus the total number of stones
+	 * in stacks owned by the other player on board b. */
+	private static int gathered(BitBoard b, Stone.Color c) {
+		int acc = 0;
+		for (int m = b.ownedMask(c); m != 0; m &= m - 1) acc += b.height(Integer.numberOfTrailingZeros(m));
+		for (int m = b.ownedMask(c.other()); m != 0; m &= m - 1) acc -= b.height(Integer.numberOfTrailingZeros(m));
+		return acc;
 	}
 
-	/** Evaluate state s in the perspective of the player with color c using strategy strategy. */
+	/** Evaluate state s in the perspective of the player with color c using strategy strategy. A random amount below
+	 * 1/2 is added to break ties. */
 	public static float evaluate(State s, Stone.Color c, Strategy strategy) {
+		return evaluate(s, c, strategy, ThreadLocalRandom.current().nextFloat() / 2);
+	}
+
+	/** Evaluate state s in the perspective of the player with color c using strategy strategy, adding noise to break
+	 * ties.
+	 * Precondition: 0 <= noise < 1/2 */
+	private static float evaluate(State s, Stone.Color c, Strategy strategy, float noise) {
 		// take care of endgame conditions for nonrandom player
 		if (strategy != Strategy.RANDOM) {
 			Player me = s.getPrevPlayer().getColor() == c ? s.getPrevPlayer() : s.getNextPlayer();
@@ -100,199 +105,811 @@ public class AIPlayer extends Player {
 				throw new RuntimeException("evaluate error");
 			}
 		}
-		float e = RANDOM.nextFloat() / 2;
+		BitBoard b = s.getBoard().bits();
+		float e = noise;
 		switch (strategy) {
 		case RANDOM:
 			return RANDOM.nextInt();
 		case SELFISH:
-			e += s.getBoard().numOwnedStacks(c);
+			e += b.numOwnedStacks(c);
 			return e;
 		case ATTACKER:
-			e -= s.getBoard().numOwnedStacks(c.other());
+			e -= b.numOwnedStacks(c.other());
 			return e;
 		case SELFISH_ATTACKER:
-			e += s.getBoard().numOwnedStacks(c) - s.getBoard().numOwnedStacks(c.other());
+			e += b.numOwnedStacks(c) - b.numOwnedStacks(c.other());
 			return e;
 		case GATHERER:
-			for (int i = 0; i < Board.SIZE; i++) {
-				for (int j = 0; j < Board.SIZE; j++) {
-					Stone.Color topColor = s.getBoard().topColor(i, j);
-					if (topColor == c) {
-						e += s.getBoard().cellContents(i, j).size();
-					} else if (topColor != null) {
-						e -= s.getBoard().cellContents(i, j).size();
-					}
-				}
-			}
+			e += gathered(b, c);
 			return e;
 		case CLUSTERBUILDER:
-			HashMap<Pair,HashSet<Pair>> g = s.getBoard().toGraph(c);
-			for (Entry<Pair,HashSet<Pair>> entry : g.entrySet()) {
-				e += entry.getValue().size();
-			}
+			// each link is counted once from each of its two ends
+			e += 2 * BitBoard.numLinks(b.pathMask(c));
 			return e;
 		case CLUSTERBUILDER_GATHERER:
-			g = s.getBoard().toGraph(c);
-			for (Entry<Pair,HashSet<Pair>> entry : g.entrySet()) {
-				e += 2 * entry.getValue().size();
-			}
-			for (int i = 0; i < Board.SIZE; i++) {
-				for (int j = 0; j < Board.SIZE; j++) {
-					Stone.Color topColor = s.getBoard().topColor(i, j);
-					if (topColor == c) {
-						e += s.getBoard().cellContents(i, j).size();
-					} else if (topColor != null) {
-						e -= s.getBoard().cellContents(i, j).size();
-					}
-				}
-			}
+			e += 4 * BitBoard.numLinks(b.pathMask(c));
+			e += gathered(b, c);
 			return e;
 		default:
 			throw new UnsupportedOperationException("evaluate strategy not supported");
 		}
 	}
 
-	/** Return a priority queue of all (nextState,moveToGetHere,nextStateEval) that the next player in state s can do.
-	 * The queue is ordered using the evaluation function in the perspective of the player with color c using strategy
-	 * strategy. If maxMin is true, it is a max-queue. If maxMin is false, then it's a min-queue. */
-	private static PriorityQueue<MoveStateEval> getPossibleMoves(State s, boolean maxMin, Stone.Color c, Player.Strategy strategy) {
-		// Create a priority queue to optimize order in which nodes will be expanded by minimax
-		PriorityQueue<MoveStateEval> queue;
-		if (maxMin) {
-			queue = new PriorityQueue<MoveStateEval>(new Comparator<MoveStateEval>() {
-				public int compare(MoveStateEval s1, MoveStateEval s2) {
-					return (int) Math.signum(s2.eval - s1.eval);
-				}
-			});
-		} else {
-			queue = new PriorityQueue<MoveStateEval>(new Comparator<MoveStateEval>() {
-				public int compare(MoveStateEval s1, MoveStateEval s2) {
-					return (int) Math.signum(s1.eval - s2.eval);
-				}
-			});
+	/** An instance searches positions for this player. Each thread of a search has its own searcher, with its own copy
+	 * of the state and its own move pickers, and all of them share the transposition table of this player. */
+	private class Searcher implements Runnable {
+
+		private final MovePicker[] pickers;  // pickers[ply] hands out the moves of nodes ply plies from the root
+		private final MoveHistory history;   // orders the quiet moves of this searcher
+		private final int id;                // 0 for the searcher whose result is used, 1, 2, ... for helpers
+		private State s;                     // state being searched
+		private int maxDepth;                // deepest iteration to search
+		private long nodes;                  // nodes visited by the current search
+		private int rootMove;                // best move found at the root by the last call of search
+		private long quiescenceNodes;        // nodes searched past the horizon by the current search
+		private long evaluations;            // positions evaluated by the current search
+		private long betaCutoffs;            // nodes of the current search cut off by one of their moves
+		private long firstMoveCutoffs;       // nodes of the current search cut off by their first move
+		private long tableProbes;            // probes of the table by the current search
+		private long tableHits;              // probes of the table by the current search that found an entry
+		// quiescenceMoves[q] holds the moves of nodes q plies past the horizon
+		private final int[][] quiescenceMoves = new int[QUIESCENCE_DEPTH + 1][MoveGenerator.MAX_MOVES];
+
+		private Searcher(int id, int maxDepth) {
+			this.id = id;
+			history = new MoveHistory(maxDepth);
+			pickers = new MovePicker[maxDepth + 1];
+			for (int i = 0; i <= maxDepth; i++) pickers[i] = new MovePicker(history);
+		}
+
+		/** Prepare to search s to at most depth maxDepth.
+		 * Precondition: maxDepth is at most the depth this searcher was made for */
+		private void reset(State s, int maxDepth) {
+			this.s = s;
+			this.maxDepth = maxDepth;
+			nodes = 0;
+			quiescenceNodes = 0;
+			evaluations = 0;
+			betaCutoffs = 0;
+			firstMoveCutoffs = 0;
+			tableProbes = 0;
+			tableHits = 0;
+			history.age();
 		}
 
-		// if game is already over, there are no more moves
-		if (s.getStatus(s.getPrevPlayer()) != State.GameStatus.ONGOING) return queue;
-
-		// moves for placing new stone
-		if (!s.getNextPlayer().isOut()) {
-			for (Pair coords : s.getBoard().emptyCells()) {
-				String suffix = "(" + coords.row + "," + coords.col + ")";
-				if (s.getNextPlayer().stones > 0) {
-					Move flatMove = new Move("F" + suffix);
-					State flatState = childState(s, flatMove);
-					float flatEval = evaluate(flatState, c, strategy);
-					queue.offer(new MoveStateEval(flatMove, flatState, flatEval));
-					Move standMove = new Move("S" + suffix);
-					State standState = childState(s, standMove);
-					float standEval = evaluate(standState, c, strategy);
-					queue.offer(new MoveStateEval(standMove, standState, standEval));
+		/** Search as a helper: deepen until the search is stopped or maxDepth is searched. Half of the helpers start one
+		 * ply deeper, so that the helpers do not all search the same depth at the same time. Results only reach the
+		 * main searcher through the table. */
+		public void run() {
+			for (int d = 1 + id % 2; d <= maxDepth && !stopped; d++) {
+				search(s, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, d, 0);
+			}
+		}
+
+		/** Return the value of state s for its next player according to a principal variation search to depth depth,
+		 * which is the number of additional plies to search from s, with the window (alpha, beta). A depth of 0 means
+		 * that we return the evaluation of s. A value at or below alpha is only an upper bound on the true value, and a
+		 * value at or above beta is only a lower bound. At the root, the best move is left in rootMove.
+		 * 
+		 * The first move of each node is searched with the full window. The rest are first searched with a null window
+		 * just above alpha, which only tells whether they beat the best move so far, and are searched again with the
+		 * full window if they do. Values are negated from one ply to the next, so that every node maximizes (negamax).
+		 * Moves are made on s and undone again, so s is unmodified when this returns. The transposition table is probed
+		 * before any moves are generated, and the moves come from a MovePicker, which only generates the later stages if
+		 * the earlier ones do not cut off. Quiet moves that cut off are recorded in the history of this searcher to
+		 * order the moves of later nodes.
+		 *
+		 * In a null-window node that evaluates at or above beta, the next player first passes, and if a search that is
+		 * NULL_MOVE_REDUCTION plies shallower still fails high, the node is cut off without searching its moves. Quiet
+		 * moves late in the order are scouted at a reduced depth (see reduction), and searched again at the full depth if
+		 * they beat alpha.
+		 *
+		 * Acknowledgment: This algorithm was written with inspiration from the minimax algorithm on p. 170 of Artificial
+		 * Intelligence, A Modern Approach (3rd edition) by Russell and Norvig
+		 * 
+		 * Precondition: depth >= 0; s is ply plies from the root of the search */
+		private double search(State s, double alpha, double beta, int depth, int ply) {
+			// terminal cases
+			if (outOfTime()) return 0;
+			if (s.getStatus(s.getPrevPlayer()) != State.GameStatus.ONGOING) return leaf(s);
+			if (depth == 0) return quiescence(s, alpha, beta, 0);
+			long key = s.getHash();
+			double alphaOrig = alpha;
+			long entry = table.probe(key);
+			tableProbes++;
+			if (entry != 0) tableHits++;
+			// the root is never cut off, so that a move is always chosen by searching
+			if (ply > 0 && entry != 0 && cutsOff(entry, alpha, beta, depth)) return TranspositionTable.score(entry);
+
+			// if passing still fails high after a shallower search, a real move is assumed to as well
+			boolean scout = beta <= Math.nextUp(alpha);
+			if (nullMove && scout && ply > 0 && depth >= NULL_MOVE_DEPTH && canPass(s) && leaf(s) >= beta) {
+				s.applyNullMove();
+				double score = -search(s, -beta, -Math.nextDown(beta), depth-1-NULL_MOVE_REDUCTION, ply+1);
+				s.undoNullMove();
+				if (stopped) return 0;
+				// a road win found after a pass is not proven, since the pass is not a move
+				if (score >= beta) return score >= Integer.MAX_VALUE ? beta : score;
+			}
+
+			double value = Double.NEGATIVE_INFINITY;
+			int bestMove = Move.NO_MOVE;
+			int searched = 0;  // moves searched so far
+
+			// moves are generated in stages as they are needed, starting with the best move from the table
+			MovePicker picker = pickers[ply];
+			picker.reset(s, entry != 0 ? TranspositionTable.move(entry) : Move.NO_MOVE, ply);
+			for (int m = picker.next(); m != Move.NO_MOVE; m = picker.next()) {
+				boolean quiet = picker.lastWasQuiet();
+				s.applyMove(m);
+				searched++;
+				double score;
+				if (bestMove == Move.NO_MOVE || !principalVariation) {
+					score = -search(s, -beta, -alpha, depth-1, ply+1);
+				} else {
+					int reduction = quiet ? reduction(s, depth, searched) : 0;
+					score = -search(s, -Math.nextUp(alpha), -alpha, depth-1-reduction, ply+1);
+					// a reduced move that beats alpha is searched again to the full depth before it is believed
+					if (reduction > 0 && score > alpha && !stopped) {
+						score = -search(s, -Math.nextUp(alpha), -alpha, depth-1, ply+1);
+					}
+					if (score > alpha && score < beta && !stopped) score = -search(s, -beta, -alpha, depth-1, ply+1);
 				}
-				if (s.getNextPlayer().capstones > 0) {
-					Move capMove = new Move("C" + suffix);
-					State capState = childState(s, capMove);
-					float capEval = evaluate(capState, c, strategy);
-					queue.offer(new MoveStateEval(capMove, capState, capEval));
+				s.undoMove();
+				// the result of a child that was cut short is meaningless, so nothing more is learned or stored
+				if (stopped) return value;
+				if (score > value || bestMove == Move.NO_MOVE) {
+					value = score;
+					bestMove = m;
+					if (ply == 0) rootMove = m;
 				}
+				if (value >= beta) {
+					betaCutoffs++;
+					if (searched == 1) firstMoveCutoffs++;
+					if (picker.lastWasQuiet()) {
+						history.cutoff(s.getNextPlayer().getColor(), ply, s.getLastMoveCode(), m, depth);
+					}
+					table.store(key, depth, TranspositionTable.LOWER, (float) value, bestMove);
+					return value;
+				}
+				alpha = Math.max(alpha, value);
+			}
+			if (bestMove == Move.NO_MOVE) return leaf(s);
+			byte bound = value <= alphaOrig ? TranspositionTable.UPPER : TranspositionTable.EXACT;
+			table.store(key, depth, bound, (float) value, bestMove);
+			return value;
+		}
+
+		/** Return true if the next player in s may pass in the search. Passing is a poor guess of what the best move
+		 * is worth when the other player could complete a road with their next placement, since every real move then
+		 * has to block it, and when the next player has few stones left, since a player out of stones ends the game
+		 * whether it suits them or not. Neither player may pass twice in a row. */
+		private boolean canPass(State s) {
+			if (s.getLastMoveCode() == Move.NO_MOVE) return false;
+			Player p = s.getNextPlayer();
+			if (p.getStones() + p.getCapstones() <= NULL_MOVE_STONES) return false;
+			Player other = s.getPrevPlayer();
+			return other.isOut() || s.getBoard().bits().roadCells(other.getColor()) == 0;
+		}
+
+		/** Return how many plies less than the rest the quiet move that led to s, the searched-th move of its node, is
+		 * searched to, given the depth of its node. The first LATE_MOVE_COUNT moves of a node are ordered well enough
+		 * that one of them usually cuts off, so the rest are searched one ply shallower, and two plies once twice as many
+		 * have been searched. A move that threatens to complete a road is never reduced.
+		 * Precondition: s is not the root */
+		private int reduction(State s, int depth, int searched) {
+			if (!lateMoveReductions || depth < LATE_MOVE_DEPTH || searched <= LATE_MOVE_COUNT) return 0;
+			Player p = s.getPrevPlayer();
+			if (!p.isOut() && s.getBoard().bits().roadCells(p.getColor()) != 0) return 0;
+			return searched > 2 * LATE_MOVE_COUNT && depth > LATE_MOVE_DEPTH ? 2 : 1;
+		}
+
+		/** Return the value of state s for its next player, which is at the horizon of the search or q plies past it,
+		 * with the window (alpha, beta). Only road races are searched past the horizon: if the next player can
+		 * complete a road with a placement or a stack move, that decides the value. If the other player can, only the
+		 * moves that block every such cell are searched, which are placements on it and stack moves that cover it or a
+		 * stone of a group next to it with a stone of the next player, and the next player loses if there are none.
+		 * Otherwise, and once QUIESCENCE_DEPTH plies or the node budget of the search are used up, the value is the
+		 * evaluation of s.
+		 * Precondition: the game is not over in s */
+		private double quiescence(State s, double alpha, double beta, int q) {
+			if (quiescenceBudget == 0) return leaf(s);
+			BitBoard b = s.getBoard().bits();
+			Player p = s.getNextPlayer();
+			Stone.Color c = p.getColor();
+			int wins = p.isOut() ? 0 : b.roadCells(c);
+			if (wins != 0) {
+				int type = p.getStones() > 0 ? MoveTable.FLAT : MoveTable.CAPSTONE;
+				s.applyMove(MoveTable.code(type, Integer.numberOfTrailingZeros(wins)));
+				double value = -leaf(s);
+				s.undoMove();
+				return value;
+			}
+			int[] moves = quiescenceMoves[q];
+			int win = roadStackMove(s, moves);
+			if (win != Move.NO_MOVE) {
+				s.applyMove(win);
+				double value = -leaf(s);
+				s.undoMove();
+				return value;
 			}
+			int threats = s.getPrevPlayer().isOut() ? 0 : b.roadCells(c.other());
+			if (threats == 0 || q == QUIESCENCE_DEPTH || quiescenceNodes >= quiescenceBudget) return leaf(s);
+			quiescenceNodes++;
+
+			int n = blockingMoves(s, threats, moves);
+			double value = -WIN;
+			for (int i = 0; i < n; i++) {
+				s.applyMove(moves[i]);
+				double score = outOfTime() ? 0 : -quiescence(s, -beta, -alpha, q+1);
+				s.undoMove();
+				if (stopped) return value;
+				value = Math.max(value, score);
+				alpha = Math.max(alpha, value);
+				if (alpha >= beta) break;
+			}
+			return value;
 		}
 
-		// moves for moving a stack
-		for (int i = 0; i < Board.SIZE; i++) {
-			for (int j = 0; j < Board.SIZE; j++) {
-				if (s.getBoard().topColor(i, j) != c) continue;  // skip cells we can't move
-				for (char d : DIRECTIONS) {
-					for (int n = 1; n <= Math.min(Board.CARRY_LIMIT, s.getBoard().cellContents(i, j).size()); n++) {
-						for (String dropPattern : PARTITIONS[n]) {
-							String stackMoveString = "M(" + i + "," + j + ")" + d + n + "[" + dropPattern + "]";
-							Move stackMove = new Move(stackMoveString);
-							State stackState;
-							try {
-								stackState = childState(s, stackMove);
-							} catch (Board.IllegalMove e) {
-								continue;
-							}
-							double stackEval = evaluate(stackState, c, strategy);
-							queue.offer(new MoveStateEval(stackMove, stackState, stackEval));
+		/** Return the code of a stack move of the next player in s that wins the game with a road, Move.NO_MOVE if
+		 * there is none. The moves of a stack are only generated, into moves, if the cells it can leave a stone of the
+		 * next player on top of could join groups of that player into a road, and a move is only made to find out if
+		 * the cells it does leave with a stone of that player on top could.
+		 * Precondition: the game is not over in s */
+		private int roadStackMove(State s, int[] moves) {
+			BitBoard b = s.getBoard().bits();
+			Stone.Color c = s.getNextPlayer().getColor();
+			State.GameStatus win = c == Stone.Color.WHITE ? State.GameStatus.PLAYER1_WIN : State.GameStatus.PLAYER2_WIN;
+			for (int m = b.ownedMask(c); m != 0; m &= m - 1) {
+				int sq = Integer.numberOfTrailingZeros(m);
+				int height = b.height(sq);
+				int carry = Math.min(Board.CARRY_LIMIT, height);
+				// the cells the stack can leave a stone of c on top of: the stack itself if a stone of c is under one
+				// it can carry, and the cells it can reach before a standing stone or capstone, or onto a standing
+				// stone if it has a capstone on top
+				int reach = 0;
+				for (int k = 1; k <= carry && k < height; k++) if (b.colorAt(sq, k) == c) reach = 1 << sq;
+				boolean capstone = (b.capstoneMask() & 1 << sq) != 0;
+				for (int d = 0; d < MoveTable.NUM_DIRECTIONS; d++) {
+					int cells = Math.min(carry, MoveTable.DISTANCE[sq][d]);
+					for (int k = 1; k <= cells; k++) {
+						int bit = 1 << (sq + MoveTable.STEPS[d] * k);
+						if ((b.capstoneMask() & bit) != 0) break;
+						if ((b.standingMask() & bit) != 0) {
+							if (capstone) reach |= bit;
+							break;
 						}
+						reach |= bit;
 					}
 				}
+				if (reach == 0 || !BitBoard.isRoad(joinedEdges(b, c, reach))) continue;
+				int n = MoveGenerator.generateStackMoves(b, sq, moves, 0);
+				for (int i = 0; i < n; i++) {
+					int code = moves[i];
+					int cells = b.dropMask(code, c);
+					// the stone left on top of the stack that moved counts as well
+					if (b.height(sq) > MoveTable.carry(code) && b.colorAt(sq, MoveTable.carry(code)) == c) {
+						cells |= 1 << sq;
+					}
+					if (cells == 0 || !BitBoard.isRoad(joinedEdges(b, c, cells))) continue;
+					s.applyMove(code);
+					boolean wins = s.getStatus(s.getPrevPlayer()) == win;
+					s.undoMove();
+					if (wins) return code;
+				}
 			}
+			return Move.NO_MOVE;
 		}
-		return queue;
-	}
 
-	/** Return the MoveStateEval that maximizes the utility according to minimax search with the specified depth,
-	 * which represents the number of additional plies of depth to search. A depth of 0 means that we return immediately
-	 * with the current state and its evaluation.
-	 * 
-	 * Acknowledgment: This algorithm was written with inspiration from the minimax algorithm on p. 170 of Artificial
-	 * Intelligence, A Modern Approach (3rd edition) by Russell and Norvig
-	 * 
-	 * Precondition: d >= 0; mse has no null fields */
-	private static MoveStateEval maximizer(MoveStateEval mse, double alpha, double beta, int depth, Stone.Color c, Player.Strategy strategy) {
-		// terminal cases
-		if (depth == 0) return mse;
-		PriorityQueue<MoveStateEval> children = getPossibleMoves(mse.state, true, c, strategy);
-		if (children.size() == 0) return mse;
-
-		// invariant: if bestChild is not null, then bestChild.eval = value
-		double value = Integer.MIN_VALUE;
-		MoveStateEval bestChild = null;
-
-		while (!children.isEmpty()) {
-			MoveStateEval child = children.poll();
-			MoveStateEval childMin = minimizer(child, alpha, beta, depth-1, c, strategy);
-			if (childMin.eval > value || bestChild == null) {
-				bestChild = child;
-				bestChild.eval = childMin.eval;
-				value = bestChild.eval;
+		/** Return the edges touched by the cells of mask cells and the groups of path cells of color c next to them. */
+		private int joinedEdges(BitBoard b, Stone.Color c, int cells) {
+			int edges = BitBoard.edgesOf(cells);
+			int near = BitBoard.grow(cells);
+			for (int g = 0; g < b.numGroups(c); g++) {
+				if ((b.group(c, g) & near) != 0) edges |= b.groupEdges(c, g);
+			}
+			return edges;
+		}
+
+		/** Put the moves of the next player in s that cover a cell of threats, or a stone of a group of the other player
+		 * next to one, into moves and return how many there are. */
+		private int blockingMoves(State s, int threats, int[] moves) {
+			BitBoard b = s.getBoard().bits();
+			Player p = s.getNextPlayer();
+			Stone.Color c = p.getColor();
+			int n = 0;
+			for (int m = threats; m != 0; m &= m - 1) {
+				int sq = Integer.numberOfTrailingZeros(m);
+				if (p.getStones() > 0) {
+					moves[n++] = MoveTable.code(MoveTable.FLAT, sq);
+					moves[n++] = MoveTable.code(MoveTable.STANDING, sq);
+				}
+				if (p.getCapstones() > 0) moves[n++] = MoveTable.code(MoveTable.CAPSTONE, sq);
+			}
+			int targets = threats;
+			int near = BitBoard.grow(threats);
+			for (int i = 0; i < b.numGroups(c.other()); i++) {
+				if ((b.group(c.other(), i) & near) != 0) targets |= b.group(c.other(), i);
+			}
+			int end = MoveGenerator.generateStackMoves(s, moves, n);
+			for (int i = n; i < end; i++) if ((b.dropMask(moves[i], c) & targets) != 0) moves[n++] = moves[i];
+			return n;
+		}
+
+		/** Count a node and return true if the current search has been stopped. The clock and stopSearch are only
+		 * checked every CHECK_INTERVAL nodes, and whichever searcher finds that time is up stops all of them. */
+		private boolean outOfTime() {
+			nodes++;
+			if (!stopped && nodes % CHECK_INTERVAL == 0) {
+				if (stopRequested || timed && System.nanoTime() - deadline >= 0) stopped = true;
 			}
-			if (value >= beta) {
-				return bestChild;
+			return stopped;
+		}
+
+		/** Return the evaluation of s for its next player. The noise that breaks ties comes from the hash of s mixed with
+		 * the salt of this player, so a position evaluates the same every time it is reached during a search, which
+		 * keeps the values of the table and of repeated searches consistent. */
+		private double leaf(State s) {
+			evaluations++;
+			long h = (s.getHash() ^ salt) * 0x9E3779B97F4A7C15L;
+			float eval = evaluate(s, color, strategy, (h >>> 40) / (float) (1 << 25));
+			return s.getNextPlayer().getColor() == color ? eval : -eval;
+		}
+
+		/** Return true if the table entry with packed data entry was searched to at least depth and its score decides
+		 * the value of its node with the window (alpha, beta). */
+		private boolean cutsOff(long entry, double alpha, double beta, int depth) {
+			if (TranspositionTable.depth(entry) < depth) return false;
+			float score = TranspositionTable.score(entry);
+			switch (TranspositionTable.bound(entry)) {
+			case TranspositionTable.EXACT:
+				return true;
+			case TranspositionTable.LOWER:
+				return score >= beta;
+			default:
+				return score <= alpha;
 			}
-			alpha = Math.max(alpha, value);
 		}
-		return bestChild;
 	}
 
-	private static MoveStateEval minimizer(MoveStateEval mse, double alpha, double beta, int depth, Stone.Color c, Player.Strategy strategy) {
-		// terminal cases
-		if (depth == 0) return mse;
-		PriorityQueue<MoveStateEval> children = getPossibleMoves(mse.state, false, c, strategy);
-		if (children.size() == 0) return mse;
+	/** Set the memory budget of the transposition table to megabytes megabytes. Anything stored so far is dropped. */
+	public void setTableMegabytes(int megabytes) {
+		if (megabytes <= 0) throw new IllegalArgumentException("invalid table size");
+		tableMegabytes = megabytes;
+		table = null;
+	}
 
-		double value = Integer.MAX_VALUE;
-		MoveStateEval bestChild = null;
+	/** Return the transposition table used by this player's search, null if no search has been done yet. */
+	public TranspositionTable getTable() {
+		return table;
+	}
 
-		while (!children.isEmpty()) {
-			MoveStateEval child = children.poll();
-			MoveStateEval childMax = maximizer(child, alpha, beta, depth-1, c, strategy);
-			if (childMax.eval < value || bestChild == null) {
-				bestChild = child;
-				bestChild.eval = childMax.eval;
-				value = bestChild.eval;
+	/** Return the code of the best move of the next player in s, found by searching to depth 1, 2, 3, ... until the
+	 * time budget runs out or the last depth is reached, which is depth if there is no budget and MAX_DEPTH if there is
+	 * one. The best moves that each iteration stores in the table are searched first by the next one. The move of the
+	 * deepest completed iteration is returned. If not even the first one completes, the best move it found so far is
+	 * returned.
+	 * 
+	 * With more than one thread, this is a Lazy SMP search: the helper threads deepen on their own copies of s at the
+	 * same time and share what they find through the table, which lets this thread cut off and order its moves sooner.
+	 * Moves are made on s and undone again, so s is unmodified when this returns. The statistics of the search are
+	 * kept for getLastSearchStats and published by SearchMonitor.
+	 * Precondition: the game is not over in s; the next player in s has the color of this player */
+	public int search(State s) {
+		long start = System.nanoTime();
+		long budget = timeBudget();
+		int maxDepth = budget > 0 ? MAX_DEPTH : depth;
+		SearchStats stats = new SearchStats(color, strategy, threads);
+		SearchEndEvent event = SearchMonitor.start(stats, maxDepth, budget);
+		// a forced road win is played without searching, since the search may not see that deep
+		int best = tinueMove(s);
+		if (best != Move.NO_MOVE) {
+			stats.solved = true;
+			stats.principalVariation = new int[] {best};
+		} else {
+			best = deepen(s, start, budget, maxDepth, stats);
+		}
+		stats.nanos = System.nanoTime() - start;
+		SearchMonitor.end(event, stats);
+		lastStats = stats;
+		stopRequested = false;
+		return best;
+	}
+
+	/** Make the current search or Monte Carlo search return as soon as it can, with the best move it has found so far,
+	 * and make think stop waiting for a ponder that hit. A stop requested while none of them is running stops the next
+	 * one as soon as it starts, until think or search returns. This may be called from any thread. */
+	public void stopSearch() {
+		stopRequested = true;
+		MonteCarloSearch m = monteCarlo;
+		if (m != null) m.stop();
+		Ponder p = finishing;
+		if (p != null) p.helper.stopSearch();
+	}
+
+	/** Return the code of the best move of the next player in s by iterative deepening from depth 1 to maxDepth, with
+	 * a time budget of budget milliseconds from start, 0 if there is none, and fill in the counts of stats.
+	 * Precondition: as for search */
+	private int deepen(State s, long start, long budget, int maxDepth, SearchStats stats) {
+		// the table is kept between moves, since positions searched last move often come up again
+		if (table == null) table = new TranspositionTable(tableMegabytes);
+		if (searchers == null || searchers.length != threads || searchers[0].pickers.length <= maxDepth) {
+			searchers = new Searcher[threads];
+			for (int i = 0; i < threads; i++) searchers[i] = new Searcher(i, maxDepth);
+		}
+		timed = budget > 0;
+		deadline = start + budget * 1000000;
+		stopped = false;
+		completedDepth = 0;
+		Searcher main = searchers[0];
+		main.reset(s, maxDepth);
+		Future<?>[] helpers = new Future<?>[threads - 1];
+		for (int i = 1; i < threads; i++) {
+			searchers[i].reset(s.clone(), maxDepth);
+			helpers[i-1] = SearchExecutor.submit(searchers[i]);
+		}
+		int best = Move.NO_MOVE;
+		long[] iterationNodes = new long[maxDepth];
+		long[] iterationNanos = new long[maxDepth];
+		try {
+			double previous = 0;
+			for (int d = 1; d <= maxDepth; d++) {
+				long nodesBefore = main.nodes;
+				long iterationStart = System.nanoTime();
+				double value = aspirationSearch(main, s, d, previous);
+				if (stopped) {
+					if (best == Move.NO_MOVE) best = main.rootMove;
+					break;
+				}
+				best = main.rootMove;
+				previous = value;
+				completedDepth = d;
+				iterationNodes[d-1] = main.nodes - nodesBefore;
+				iterationNanos[d-1] = System.nanoTime() - iterationStart;
+				stats.value = value;
+				// stop once the result is decided, or if the next iteration is unlikely to finish in time
+				if (Math.abs(value) >= Integer.MAX_VALUE) break;
+				if (budget > 0 && (System.nanoTime() - start) * 2 > budget * 1000000) break;
 			}
-			if (value <= alpha) {
-				return bestChild;
+		} finally {
+			stopped = true;
+			for (Future<?> helper : helpers) SearchExecutor.await(helper, 0);
+		}
+		if (best == Move.NO_MOVE) {
+			int[] moves = new int[MoveGenerator.MAX_MOVES];
+			MoveGenerator.generate(s, moves);
+			best = moves[0];
+		}
+		stats.depth = completedDepth;
+		for (Searcher searcher : searchers) {
+			stats.nodes += searcher.nodes;
+			stats.quiescenceNodes += searcher.quiescenceNodes;
+			stats.evaluations += searcher.evaluations;
+			stats.betaCutoffs += searcher.betaCutoffs;
+			stats.firstMoveCutoffs += searcher.firstMoveCutoffs;
+			stats.tableProbes += searcher.tableProbes;
+			stats.tableHits += searcher.tableHits;
+		}
+		stats.iterationNodes = Arrays.copyOf(iterationNodes, completedDepth);
+		stats.iterationNanos = Arrays.copyOf(iterationNanos, completedDepth);
+		stats.principalVariation = principalVariation(s, best, Math.max(1, completedDepth));
+		return best;
+	}
+
+	/** Return the codes of the line that starts with the move with code best in s and follows the best moves stored in
+	 * the table, up to maxPlies moves long. The line stops early at a position that has no legal best move in the
+	 * table, since it may have been replaced, and where the game is over. s is unmodified when this returns. */
+	private int[] principalVariation(State s, int best, int maxPlies) {
+		int[] line = new int[maxPlies];
+		int n = 0;
+		for (int m = best; n < maxPlies && m != Move.NO_MOVE && MoveGenerator.isLegal(s, m); n++) {
+			line[n] = m;
+			s.applyMove(m);
+			if (s.getStatus(s.getPrevPlayer()) != State.GameStatus.ONGOING) {
+				n++;
+				break;
 			}
-			beta = Math.min(beta, value);
+			long entry = table.probe(s.getHash());
+			m = entry != 0 ? TranspositionTable.move(entry) : Move.NO_MOVE;
 		}
-		return bestChild;
+		for (int i = 0; i < n; i++) s.undoMove();
+		return Arrays.copyOf(line, n);
 	}
 
-	/** Precondition: the game is not over */
-	public ResultMove makeMove(StatusGUI status) {
-		Move chosenMove;
-		if (strategy == Strategy.RANDOM) {
-			PriorityQueue<MoveStateEval> branches = getPossibleMoves(state, true, color, strategy);
-			chosenMove = branches.peek().move;
+	/** Return the code of the first move of a forced road win of the next player in s if the tinue solver finds one,
+	 * Move.NO_MOVE if not or if the solver is turned off. */
+	private int tinueMove(State s) {
+		if (tinueNodes == 0) return Move.NO_MOVE;
+		if (solver == null) solver = new TinueSolver(tinueNodes, TINUE_PLIES);
+		return solver.solve(s) == TinueSolver.Result.TINUE ? solver.getBestMove() : Move.NO_MOVE;
+	}
+
+	/** Return the code of the best move of the next player in s according to a Monte Carlo tree search on the threads
+	 * of this player (see MonteCarloSearch). The search runs until the time budget is used up if there is one, and for
+	 * the playout budget of this player otherwise. The tree is kept, so that the next move starts from the part of it
+	 * that is still reachable. Moves are made on s and undone again, so s is unmodified when this returns.
+	 * Precondition: the game is not over in s; the next player in s has the color of this player */
+	public int monteCarloSearch(State s) {
+		int win = tinueMove(s);
+		if (win != Move.NO_MOVE) return win;
+		if (monteCarlo == null) monteCarlo = new MonteCarloSearch(MonteCarloSearch.DEFAULT_MAX_NODES);
+		// a stop that came before the search existed is passed on to it
+		if (stopRequested) monteCarlo.stop();
+		long budget = timeBudget();
+		long maxPlayouts = budget > 0 ? Long.MAX_VALUE : playouts > 0 ? playouts : Math.max(1, depth) * PLAYOUTS_PER_LEVEL;
+		int best = monteCarlo.search(s, maxPlayouts, budget, threads);
+		stopRequested = false;
+		return best;
+	}
+
+	/** Return the value of s for this player, searched by searcher to depth depth with an aspiration window of
+	 * ASPIRATION_WINDOW on each side of previous, the value of the iteration before. A narrow window cuts off more, but
+	 * if the value falls outside it, the search is repeated with the window widened on that side, twice as far each
+	 * time, until the value lands inside it. The first iterations, and iterations after a decided result, are searched
+	 * with the full window. */
+	private double aspirationSearch(Searcher searcher, State s, int depth, double previous) {
+		double alpha = Double.NEGATIVE_INFINITY;
+		double beta = Double.POSITIVE_INFINITY;
+		double delta = ASPIRATION_WINDOW;
+		if (principalVariation && depth >= ASPIRATION_DEPTH && Math.abs(previous) < Integer.MAX_VALUE) {
+			alpha = previous - delta;
+			beta = previous + delta;
+		}
+		while (true) {
+			searcher.rootMove = Move.NO_MOVE;
+			double value = searcher.search(s, alpha, beta, depth, 0);
+			if (stopped) return value;
+			if (value <= alpha) alpha = value <= Integer.MIN_VALUE ? Double.NEGATIVE_INFINITY : value - delta;
+			else if (value >= beta) beta = value >= Integer.MAX_VALUE ? Double.POSITIVE_INFINITY : value + delta;
+			else return value;
+			delta *= 2;
+		}
+	}
+
+	/** Return the time in milliseconds that the next move may take, 0 if there is no limit. A game clock limits the
+	 * move to an even share of the time left over the next MOVES_TO_GO moves. */
+	private long timeBudget() {
+		if (clockMillis < 0) return moveMillis;
+		long share = Math.max(1, clockMillis / MOVES_TO_GO);
+		return moveMillis > 0 ? Math.min(moveMillis, share) : share;
+	}
+
+	/** Return the time in milliseconds that the next move may take, 0 if there is no limit. */
+	public long getTimeBudget() {
+		return timeBudget();
+	}
+
+	/** Set the time budget of each move to millis milliseconds. A budget of 0 searches to the depth of this player no
+	 * matter how long it takes, which is the default. */
+	public void setMoveTime(long millis) {
+		if (millis < 0) throw new IllegalArgumentException("invalid move time");
+		moveMillis = millis;
+	}
+
+	/** Set the time left on the game clock of this player to millis milliseconds, -1 if there is no clock. */
+	public void setGameClock(long millis) {
+		if (millis < -1) throw new IllegalArgumentException("invalid clock");
+		clockMillis = millis;
+	}
+
+	/** Return the depth of the deepest iteration that the last search completed. */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	/** Return the statistics of the last search, null if this player has not searched yet. */
+	public SearchStats getLastSearchStats() {
+		return lastStats;
+	}
+
+	/** Return the number of nodes that the last search visited, over all of its threads. */
+	public long getNodes() {
+		long nodes = 0;
+		if (searchers != null) for (Searcher searcher : searchers) nodes += searcher.nodes;
+		return nodes;
+	}
+
+	/** Set whether the search uses null-window scouts and aspiration windows. Turning them off leaves plain alpha-beta
+	 * search, which finds the same moves with more nodes, for comparison. */
+	public void setPrincipalVariation(boolean principalVariation) {
+		this.principalVariation = principalVariation;
+	}
+
+	/** Set whether the search prunes a node without searching its moves when passing already fails high, which it
+	 * does by default. */
+	public void setNullMove(boolean nullMove) {
+		this.nullMove = nullMove;
+	}
+
+	/** Set whether the search reduces the depth of quiet moves that are ordered late, which it does by default. The
+	 * reductions need the null-window scouts of principal variation search, so they are not used without them. */
+	public void setLateMoveReductions(boolean lateMoveReductions) {
+		this.lateMoveReductions = lateMoveReductions;
+	}
+
+	/** Set the number of nodes that each thread of a search may search past the horizon to nodes. A budget of 0 turns
+	 * the quiescence search off, so that the horizon is evaluated as it is. */
+	public void setQuiescenceNodes(long nodes) {
+		if (nodes < 0) throw new IllegalArgumentException("invalid node budget");
+		quiescenceBudget = nodes;
+	}
+
+	/** Set the node limit of the tinue solver that looks for a forced road win before each search to nodes. A limit
+	 * of 0 turns the solver off. */
+	public void setTinueNodes(int nodes) {
+		if (nodes < 0) throw new IllegalArgumentException("invalid node limit");
+		tinueNodes = nodes;
+		solver = null;
+	}
+
+	/** Set the number of playouts of each move of an MCTS player without a time budget to playouts. A budget of 0,
+	 * the default, gives PLAYOUTS_PER_LEVEL playouts for each level of the depth of this player. */
+	public void setPlayouts(long playouts) {
+		if (playouts < 0) throw new IllegalArgumentException("invalid playout budget");
+		this.playouts = playouts;
+	}
+
+	/** Return the Monte Carlo search of this MCTS player, null if it has not searched yet. */
+	public MonteCarloSearch getMonteCarloSearch() {
+		return monteCarlo;
+	}
+
+	/** Set the number of threads that search each move to threads. */
+	public void setThreads(int threads) {
+		if (threads <= 0) throw new IllegalArgumentException("invalid thread count");
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/** An instance searches, on a thread of SearchExecutor, the position that this player expects after the reply of
+	 * the other player to its last move. The search is done by a helper player that shares the table and the evaluation
+	 * of this player, on a snapshot of the position that no other thread sees, so nothing is shared with the game
+	 * while it runs. It searches to the depth of this player, or until it is stopped if this player has a time budget,
+	 * since there is no telling how long the other player will think. */
+	private class Ponder implements Runnable {
+
+		private final State s;         // the expected position
+		private final long hash;       // hash of s
+		private final AIPlayer helper;
+		private final Future<?> future;
+		private volatile int move = Move.NO_MOVE;  // move found for s, once the search is done
+
+		private Ponder(State s) {
+			this.s = s;
+			hash = s.getHash();
+			helper = new AIPlayer(color, s, strategy, timeBudget() > 0 ? MAX_DEPTH : depth);
+			helper.table = table;
+			helper.salt = salt;
+			helper.threads = threads;
+			helper.principalVariation = principalVariation;
+			helper.nullMove = nullMove;
+			helper.lateMoveReductions = lateMoveReductions;
+			helper.quiescenceBudget = quiescenceBudget;
+			helper.tinueNodes = tinueNodes;
+			future = SearchExecutor.submit(this);
+		}
+
+		public void run() {
+			move = helper.search(s);
+		}
+
+		/** Wait for the search to end, for at most millis milliseconds, for as long as it takes if millis is 0, and not
+		 * at all if it is negative, then stop it and return the move it found. */
+		private int finish(long millis) {
+			if (millis >= 0) SearchExecutor.await(future, millis);
+			helper.stopSearch();
+			SearchExecutor.await(future, 0);
+			return move;
+		}
+	}
+
+	/** Set whether this player searches the reply it expects while the other player thinks, which it does not by
+	 * default. Only players that choose their moves with search ponder. */
+	public void setPonder(boolean ponder) {
+		this.ponder = ponder;
+		if (!ponder) stopPondering();
+	}
+
+	/** Stop pondering and throw away what was found, which is needed once the game is over, since no move of this
+	 * player will end it then. */
+	public void stopPondering() {
+		Ponder p = pondering;
+		pondering = null;
+		if (p != null) p.finish(-1);
+	}
+
+	/** Return the code of the move found by pondering if the ponder searched s, after letting it search for as long as
+	 * a move may take, and Move.NO_MOVE otherwise, in which case a ponder on another position is stopped. Either way,
+	 * the ponder is over when this returns. */
+	private int ponderMove(State s) {
+		Ponder p = pondering;
+		pondering = null;
+		if (p == null) return Move.NO_MOVE;
+		if (p.hash != s.getHash()) {
+			p.finish(-1);
+			return Move.NO_MOVE;
+		}
+		// stopSearch stops the ponder while this waits for it
+		finishing = p;
+		if (stopRequested) p.helper.stopSearch();
+		int move = p.finish(timeBudget());
+		finishing = null;
+		if (move == Move.NO_MOVE) return Move.NO_MOVE;
+		lastStats = p.helper.lastStats;
+		completedDepth = p.helper.completedDepth;
+		return move;
+	}
+
+	/** Start pondering on the position after the move with code code in s and the reply that the other player is
+	 * expected to make, which is the second move of the principal variation of the last search, or the best move in
+	 * the table if that line was cut short. Do nothing if there is no legal reply to expect or the game ends first. */
+	private void startPondering(State s, int code) {
+		State expected = s.clone();
+		expected.applyMove(code);
+		if (expected.getStatus(expected.getPrevPlayer()) != State.GameStatus.ONGOING) return;
+		if (table == null) table = new TranspositionTable(tableMegabytes);
+		int reply = Move.NO_MOVE;
+		SearchStats stats = lastStats;
+		if (stats != null && stats.principalVariation.length > 1 && stats.principalVariation[0] == code) {
+			reply = stats.principalVariation[1];
 		} else {
-			MoveStateEval current = new MoveStateEval(null, state, evaluate(state, color, strategy));
-			MoveStateEval next = maximizer(current, Integer.MIN_VALUE, Integer.MAX_VALUE, depth, color, strategy);
-			chosenMove = next.move;
+			long entry = table.probe(expected.getHash());
+			if (entry != 0) reply = TranspositionTable.move(entry);
+		}
+		if (reply == Move.NO_MOVE || !MoveGenerator.isLegal(expected, reply)) return;
+		expected.applyMove(reply);
+		if (expected.getStatus(expected.getPrevPlayer()) != State.GameStatus.ONGOING) return;
+		pondering = new Ponder(expected);
+	}
+
+	/** Return the code of the move this player makes in s, which must be a copy of the state of the game that no other
+	 * thread uses while this runs, so that it can run off the thread that makes the moves. If a ponder started after
+	 * the last move of this player searched s, its move is used, and otherwise the move comes from chooseMove. If
+	 * pondering is on, a ponder on the expected reply is started before this returns.
+	 * Precondition: the game is not over in s; the next player in s has the color of this player */
+	public int think(State s) {
+		int code = ponderMove(s);
+		if (code == Move.NO_MOVE) code = chooseMove(s);
+		if (ponder && strategy != Strategy.RANDOM && strategy != Strategy.MCTS) startPondering(s, code);
+		// a stop that came too late to stop anything must not stop the next move
+		stopRequested = false;
+		return code;
+	}
+
+	/** Make the next call of makeMove make the move with code code instead of choosing one, so that the move can be
+	 * chosen on another thread with think and made on the thread that owns the state of the game. */
+	public void setNextMove(int code) {
+		nextMove = code;
+	}
+
+	/** Return the code of the move this player chooses for the next player in s: a uniformly random legal move for
+	 * RANDOM, the result of monteCarloSearch for MCTS, and the result of search for the other strategies. Moves are
+	 * made on s and undone again, so s is unmodified when this returns.
+	 * Precondition: the game is not over in s; the next player in s has the color of this player */
+	public int chooseMove(State s) {
+		switch (strategy) {
+		case RANDOM:
+			Playout p = new Playout(RANDOM.nextLong());
+			p.load(s);
+			return p.randomMove();
+		case MCTS:
+			return monteCarloSearch(s);
+		default:
+			return search(s);
 		}
+	}
+
+	/** Make the move given to setNextMove, or the move that think chooses if there is none.
+	 * Precondition: the game is not over */
+	public ResultMove makeMove(StatusGUI status) {
+		// search on a single copy so that the GUI never sees the moves being tried
+		int chosenCode = nextMove != Move.NO_MOVE ? nextMove : think(state.clone());
+		nextMove = Move.NO_MOVE;
+		// the search only deals in codes, so the Move is built here for the GUI and the log
+		Move chosenMove = Move.fromCode(chosenCode);
 		executeMove(chosenMove);
 		return new ResultMove(0, chosenMove);
 	}
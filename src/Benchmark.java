@@ -0,0 +1,140 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** Measures the search of AIPlayer on a fixed suite of positions. Run it with the search depth and the thread counts
+ * to compare, for example "java Benchmark 4 1 2 4 8". Every thread count searches every position to the same depth
+ * with a new player, so no run gains from the table of another, and the speedup of each count is reported against the
+ * first one. The nodes of principal variation search, with and without null-move pruning and late-move reductions, are
+ * then compared against plain alpha-beta search. Run "java Benchmark -tactics" to check instead that the search finds
+ * the right moves in the positions of TACTICS. */
+public class Benchmark {
+
+	public static final int NUM_POSITIONS = 12;
+	public static final long SEED = 20160401;
+	public static final Player.Strategy STRATEGY = Player.Strategy.CLUSTERBUILDER_GATHERER;
+	public static final int TACTICS_DEPTH = 3;
+
+	/** Positions the search must play right at every depth up to TACTICS_DEPTH, each written as the moves from the
+	 * start that lead to it, then "|", then the moves that are right in it.
+	 * 0: Black completes row 2 by spreading the stack at (2,2) over (2,3) and (2,4), which no placement does, so White
+	 *    has to wall it off. At depth 1 only the search past the horizon sees the threat. */
+	public static final String[] TACTICS = {
+		"F(0,0) F(2,2) F(4,4) F(1,2) F(0,4) M(1,2)+ F(4,0) F(3,2) F(4,2) M(3,2)- F(0,2) F(2,0) F(1,0) F(2,1) | " +
+				"S(2,3) S(2,4) C(2,3) C(2,4)"
+	};
+
+	/** Return the positions of the suite. Position i is reached by 4 + 3i random legal moves from the start, using a
+	 * fixed seed so that the suite is the same on every run. Positions where the game is over are skipped. */
+	public static State[] positions() {
+		State[] positions = new State[NUM_POSITIONS];
+		Random random = new Random(SEED);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (int i = 0; i < NUM_POSITIONS; i++) {
+			State s;
+			do {
+				s = new State();
+				s.addPlayers(new AIPlayer(Stone.Color.WHITE, s, STRATEGY, 1),
+						new AIPlayer(Stone.Color.BLACK, s, STRATEGY, 1));
+				for (int ply = 0; ply < 4 + 3 * i; ply++) {
+					int n = MoveGenerator.generate(s, moves);
+					if (n == 0) break;
+					s.applyMove(moves[random.nextInt(n)]);
+				}
+			} while (s.getStatus(s.getPrevPlayer()) != State.GameStatus.ONGOING);
+			positions[i] = s;
+		}
+		return positions;
+	}
+
+	/** An instance holds the totals of searching the suite once. */
+	public static class Result {
+		public long nanos;
+		public long nodes;
+
+		/** Return the nodes searched per second. */
+		public double nodesPerSecond() {
+			return nodes * 1e9 / Math.max(1, nanos);
+		}
+	}
+
+	/** Search every position of positions to depth depth with threads threads and return the totals. If
+	 * principalVariation is false, null-window scouts and aspiration windows are not used, and if pruning is false,
+	 * neither are null-move pruning and late-move reductions. The tinue solver is turned off, so that every position is
+	 * searched. */
+	public static Result run(State[] positions, int depth, int threads, boolean principalVariation, boolean pruning) {
+		Result r = new Result();
+		for (State position : positions) {
+			State s = position.clone();
+			Stone.Color c = s.getNextPlayer().getColor();
+			AIPlayer p = new AIPlayer(c, s, STRATEGY, depth);
+			p.setThreads(threads);
+			p.setPrincipalVariation(principalVariation);
+			p.setNullMove(pruning);
+			p.setLateMoveReductions(pruning);
+			// a position the tinue solver settles would not be searched at all, and would count no nodes
+			p.setTinueNodes(0);
+			long start = System.nanoTime();
+			p.search(s);
+			r.nanos += System.nanoTime() - start;
+			r.nodes += p.getNodes();
+		}
+		return r;
+	}
+
+	/** Search every position of TACTICS to each depth up to TACTICS_DEPTH, print the moves chosen, and throw
+	 * IllegalStateException at the first move that is not right. */
+	public static void tactics() {
+		for (int i = 0; i < TACTICS.length; i++) {
+			String[] parts = TACTICS[i].split("\\|");
+			List<String> right = Arrays.asList(parts[1].trim().split(" "));
+			for (int depth = 1; depth <= TACTICS_DEPTH; depth++) {
+				State s = new State();
+				s.addPlayers(new AIPlayer(Stone.Color.WHITE, s, STRATEGY, depth),
+						new AIPlayer(Stone.Color.BLACK, s, STRATEGY, depth));
+				for (String m : parts[0].trim().split(" ")) s.applyMove(new Move(m));
+				String chosen = MoveTable.toString(((AIPlayer) s.getNextPlayer()).search(s));
+				if (!right.contains(chosen)) {
+					throw new IllegalStateException("position " + i + ", depth " + depth + ": chose " + chosen +
+							", expected one of " + right);
+				}
+				System.out.println("position " + i + ", depth " + depth + ": " + chosen);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("-tactics")) {
+			tactics();
+			return;
+		}
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int[] threads = new int[Math.max(1, args.length - 1)];
+		threads[0] = 1;
+		for (int i = 1; i < args.length; i++) threads[i-1] = Integer.parseInt(args[i]);
+		State[] positions = positions();
+		// warm up the JIT so that the first thread count is not measured cold
+		run(positions, Math.min(depth, 2), 1, true, true);
+		Result base = null;
+		System.out.println("depth " + depth + ", " + positions.length + " positions");
+		System.out.println("threads        ms         nodes     nodes/s  speedup  nps scaling");
+		for (int t : threads) {
+			Result r = run(positions, depth, t, true, true);
+			if (base == null) base = r;
+			System.out.println(String.format("%7d %9d %13d %11.0f %8.2f %12.2f", t, r.nanos / 1000000, r.nodes,
+					r.nodesPerSecond(), (double) base.nanos / r.nanos, r.nodesPerSecond() / base.nodesPerSecond()));
+		}
+		// compare the refinements of the search against plain alpha-beta at the same depth on one thread
+		Result plain = run(positions, depth, 1, false, false);
+		Result pvs = run(positions, depth, 1, true, false);
+		Result pruned = run(positions, depth, 1, true, true);
+		System.out.println();
+		System.out.println("search                ms         nodes");
+		System.out.println(String.format("alpha-beta     %9d %13d", plain.nanos / 1000000, plain.nodes));
+		System.out.println(String.format("pvs+aspiration %9d %13d  (%.1f%% of the nodes)", pvs.nanos / 1000000, pvs.nodes,
+				100.0 * pvs.nodes / plain.nodes));
+		System.out.println(String.format("+nullmove+lmr  %9d %13d  (%.1f%% of the nodes)", pruned.nanos / 1000000,
+				pruned.nodes, 100.0 * pruned.nodes / plain.nodes));
+	}
+
+}
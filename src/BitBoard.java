@@ -0,0 +1,548 @@
+import java.util.Arrays;
+
+/** A BitBoard represents the state of a 5x5 Tak board as a set of 25-bit masks, with one bit per cell. The cell at
+ * (row, col) is bit (row * SIZE + col), so (0,0) is bit 0 at the bottom left. This is the representation the AI
+ * searches on. A Board is a view of a BitBoard for the GUI. */
+public class BitBoard implements Cloneable {
+
+	public static final int SIZE = Board.SIZE;
+	public static final int NUM_CELLS = SIZE * SIZE;
+	public static final int FULL = (1 << NUM_CELLS) - 1;  // mask of every cell
+	public static final int MAX_HEIGHT = 2 * (Player.NUM_STONES + Player.NUM_CAPSTONES);  // tallest possible stack
+
+	// masks of the cells along each edge of the board
+	public static final int BOTTOM_EDGE = (1 << SIZE) - 1;
+	public static final int TOP_EDGE = BOTTOM_EDGE << (SIZE * (SIZE-1));
+	public static final int LEFT_EDGE = edgeColumn(0);
+	public static final int RIGHT_EDGE = edgeColumn(SIZE-1);
+
+	/** Return the mask of every cell in column col. */
+	private static int edgeColumn(int col) {
+		int mask = 0;
+		for (int row = 0; row < SIZE; row++) mask |= 1 << (row * SIZE + col);
+		return mask;
+	}
+
+	private int whiteTop;   // cells whose top stone is white
+	private int blackTop;   // cells whose top stone is black
+	private int standing;   // cells whose top stone is a regular standing stone
+	private int capstones;  // cells whose top stone is a capstone
+	private int empty;      // cells with no stones
+	private long hash;      // Zobrist hash of the stacks and top stone types, kept up to date by every change
+
+	/** Edges of the board touched by a group of cells */
+	public static final int EDGE_LEFT = 1;
+	public static final int EDGE_RIGHT = 2;
+	public static final int EDGE_BOTTOM = 4;
+	public static final int EDGE_TOP = 8;
+
+	// Connected groups of path cells of each color and the edges each group touches, kept up to date by every change.
+	// The groups of the color with index i are at i * MAX_GROUPS through i * MAX_GROUPS + numGroups[i] - 1.
+	private static final int MAX_GROUPS = (NUM_CELLS + 1) / 2;
+	private int[] groups;
+	private int[] edges;
+	private int[] numGroups;
+	private int roads;  // bit i is set if the player with color index i has a road
+
+	// Stack of each cell packed into a long. Bit i is the color of the stone i places from the top, where 0 is white
+	// and 1 is black, and the highest HEIGHT_BITS bits are the number of stones. The type of the top stone is kept in
+	// the masks above since every stone below the top is a flat stone.
+	private long[] stacks;
+
+	public static final int HEIGHT_SHIFT = 58;  // leaves room for MAX_HEIGHT color bits
+	public static final long COLOR_BITS = (1L << HEIGHT_SHIFT) - 1;
+
+	// records saved for undo, allocated on first use: the masks, first cell, step, and number of cells of each record,
+	// and the stacks of those cells followed by the hash
+	private static final int UNDO_CAPACITY = 32;
+	private static final int UNDO_MASKS = 8;
+	private static final int UNDO_STACKS = SIZE + 1;  // a move touches at most one row or column, plus the hash
+	private int[] undoMasks;
+	private long[] undoStacks;
+	private int numUndo;
+
+	/** Initialize an empty board. */
+	public BitBoard() {
+		empty = FULL;
+		stacks = new long[NUM_CELLS];
+		groups = new int[2 * MAX_GROUPS];
+		edges = new int[2 * MAX_GROUPS];
+		numGroups = new int[2];
+	}
+
+	/** Initialize a board with the given masks and stacks, which are used directly. */
+	private BitBoard(int whiteTop, int blackTop, int standing, int capstones, int empty, long hash, long[] stacks,
+			int[] groups, int[] edges, int[] numGroups, int roads) {
+		this.groups = groups;
+		this.edges = edges;
+		this.numGroups = numGroups;
+		this.roads = roads;
+		this.hash = hash;
+		this.whiteTop = whiteTop;
+		this.blackTop = blackTop;
+		this.standing = standing;
+		this.capstones = capstones;
+		this.empty = empty;
+		this.stacks = stacks;
+	}
+
+	/** Return the index of the cell at (row, col). */
+	public static int square(int row, int col) {
+		return row * SIZE + col;
+	}
+
+	/** Return true if (row, col) is within the bounds of this board, false otherwise. */
+	public static boolean isValidCell(int row, int col) {
+		return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
+	}
+
+	/** Return the index of color c, which is 0 for white and 1 for black. */
+	private static int colorIndex(Stone.Color c) {
+		return c == Stone.Color.WHITE ? 0 : 1;
+	}
+
+	/** Return the mask of cells whose top stone has color c. */
+	public int ownedMask(Stone.Color c) {
+		return c == Stone.Color.WHITE ? whiteTop : blackTop;
+	}
+
+	/** Return the mask of cells that count as part of a path for the player with color c. */
+	public int pathMask(Stone.Color c) {
+		return ownedMask(c) & ~standing;
+	}
+
+	public int standingMask() {
+		return standing;
+	}
+
+	public int capstoneMask() {
+		return capstones;
+	}
+
+	public int emptyMask() {
+		return empty;
+	}
+
+	/** Return the Zobrist hash of the stones on this board. It does not include the reserves or the player to move. */
+	public long hash() {
+		return hash;
+	}
+
+	/** Return the Zobrist hash of the stones on this board computed from scratch, which always equals hash(). */
+	public long computeHash() {
+		long h = 0;
+		for (int sq = 0; sq < NUM_CELLS; sq++) {
+			long stack = stacks[sq];
+			int height = height(sq);
+			for (int i = 0; i < height; i++) h ^= Zobrist.stone(sq, height - 1 - i, (int) (stack >>> i) & 1);
+			if ((standing & 1 << sq) != 0) h ^= Zobrist.standing(sq);
+			if ((capstones & 1 << sq) != 0) h ^= Zobrist.capstone(sq);
+		}
+		return h;
+	}
+
+	/** Return the number of stones in cell sq. */
+	public int height(int sq) {
+		return (int) (stacks[sq] >>> HEIGHT_SHIFT);
+	}
+
+	/** Return the packed stack of cell sq. */
+	public long stack(int sq) {
+		return stacks[sq];
+	}
+
+	/** Return the color of the stone i places from the top of cell sq, where i = 0 is the top stone.
+	 * Precondition: 0 <= i < height(sq) */
+	public Stone.Color colorAt(int sq, int i) {
+		return (stacks[sq] >>> i & 1) == 0 ? Stone.Color.WHITE : Stone.Color.BLACK;
+	}
+
+	/** Return the color of the top stone of cell sq, null if there are none. */
+	public Stone.Color topColor(int sq) {
+		int bit = 1 << sq;
+		if ((whiteTop & bit) != 0) return Stone.Color.WHITE;
+		else if ((blackTop & bit) != 0) return Stone.Color.BLACK;
+		else return null;
+	}
+
+	/** Return the number of stacks owned by the player with color c. */
+	public int numOwnedStacks(Stone.Color c) {
+		return Integer.bitCount(ownedMask(c));
+	}
+
+	/** Return the number of stacks owned by the player with color c that are part of a path. */
+	public int numOwnedPath(Stone.Color c) {
+		return Integer.bitCount(pathMask(c));
+	}
+
+	/** Return true if this board is full, false otherwise. */
+	public boolean isFull() {
+		return empty == 0;
+	}
+
+	/** Return the number of pairs of neighboring cells in mask m, counting each pair once. */
+	public static int numLinks(int m) {
+		return Integer.bitCount(m & (m >>> SIZE)) + Integer.bitCount(m & ~RIGHT_EDGE & (m >>> 1));
+	}
+
+	/** Return the mask of cells next to some cell in m, including the cells of m. */
+	public static int grow(int m) {
+		return (m | m << SIZE | m >>> SIZE | (m & ~RIGHT_EDGE) << 1 | (m & ~LEFT_EDGE) >>> 1) & FULL;
+	}
+
+	/** Return true if the cells in mask path connect the edges in mask from to the edges in mask to. The cells
+	 * reached from from are grown one neighbor at a time until they reach to or stop growing. */
+	private static boolean connects(int path, int from, int to) {
+		int reached = path & from;
+		while (reached != 0) {
+			if ((reached & to) != 0) return true;
+			int next = grow(reached) & path;
+			if (next == reached) return false;
+			reached = next;
+		}
+		return false;
+	}
+
+	/** Return true if the cells in mask path form a road from the left edge to the right edge or from the bottom edge
+	 * to the top edge. */
+	public static boolean hasRoad(int path) {
+		return connects(path, LEFT_EDGE, RIGHT_EDGE) || connects(path, BOTTOM_EDGE, TOP_EDGE);
+	}
+
+	/** Return true if the player with color c has a road on this board. This is looked up from the groups, so it
+	 * takes constant time. */
+	public boolean hasRoad(Stone.Color c) {
+		return (roads & 1 << colorIndex(c)) != 0;
+	}
+
+	/** Return the number of connected groups of path cells of the player with color c. */
+	public int numGroups(Stone.Color c) {
+		return numGroups[colorIndex(c)];
+	}
+
+	/** Return the mask of the cells of the ith connected group of path cells of the player with color c.
+	 * Precondition: 0 <= i < numGroups(c) */
+	public int group(Stone.Color c, int i) {
+		return groups[colorIndex(c) * MAX_GROUPS + i];
+	}
+
+	/** Return the edges touched by the ith connected group of path cells of the player with color c, as a combination
+	 * of EDGE_LEFT, EDGE_RIGHT, EDGE_BOTTOM, and EDGE_TOP.
+	 * Precondition: 0 <= i < numGroups(c) */
+	public int groupEdges(Stone.Color c, int i) {
+		return edges[colorIndex(c) * MAX_GROUPS + i];
+	}
+
+	/** Return the edges touched by the cells in mask m, as a combination of EDGE_LEFT, EDGE_RIGHT, EDGE_BOTTOM, and
+	 * EDGE_TOP. */
+	public static int edgesOf(int m) {
+		return ((m & LEFT_EDGE) != 0 ? EDGE_LEFT : 0) | ((m & RIGHT_EDGE) != 0 ? EDGE_RIGHT : 0) |
+				((m & BOTTOM_EDGE) != 0 ? EDGE_BOTTOM : 0) | ((m & TOP_EDGE) != 0 ? EDGE_TOP : 0);
+	}
+
+	/** Return true if a group touching the edges in e is a road. */
+	public static boolean isRoad(int e) {
+		return (e & (EDGE_LEFT | EDGE_RIGHT)) == (EDGE_LEFT | EDGE_RIGHT) ||
+				(e & (EDGE_BOTTOM | EDGE_TOP)) == (EDGE_BOTTOM | EDGE_TOP);
+	}
+
+	/** Return the mask of empty cells where a stone of color c that is part of a path would complete a road. This is
+	 * looked up from the groups, so no filling is needed. */
+	public int roadCells(Stone.Color c) {
+		int k = colorIndex(c) * MAX_GROUPS;
+		int n = numGroups[colorIndex(c)];
+		int cells = 0;
+		for (int m = empty; m != 0; m &= m - 1) {
+			int bit = m & -m;
+			int near = grow(bit);
+			int e = edgesOf(bit);
+			for (int i = k; i < k + n; i++) if ((groups[i] & near) != 0) e |= edges[i];
+			if (isRoad(e)) cells |= bit;
+		}
+		return cells;
+	}
+
+	/** Return the cells of within that are connected to the cells of seed through cells of within. */
+	public static int flood(int seed, int within) {
+		int reached = seed & within;
+		while (true) {
+			int next = grow(reached) & within;
+			if (next == reached) return reached;
+			reached = next;
+		}
+	}
+
+	/** Bring the groups of both colors up to date after the path masks changed from oldWhite and oldBlack. */
+	private void updateGroups(int oldWhite, int oldBlack) {
+		int newWhite = pathMask(Stone.Color.WHITE);
+		int newBlack = pathMask(Stone.Color.BLACK);
+		if (oldWhite != newWhite) updateGroups(0, oldWhite, newWhite);
+		if (oldBlack != newBlack) updateGroups(1, oldBlack, newBlack);
+	}
+
+	/** Bring the groups of the color with index color up to date after its path mask changed from oldPath to newPath.
+	 * Only the groups that lost a cell or are next to a new cell are taken apart and flooded again, since no other
+	 * group can have changed. */
+	private void updateGroups(int color, int oldPath, int newPath) {
+		int removed = oldPath & ~newPath;
+		int added = newPath & ~oldPath;
+		int touched = removed | grow(added);
+		int base = color * MAX_GROUPS;
+		int n = numGroups[color];
+		int loose = added;
+		for (int i = 0; i < n; ) {
+			int g = groups[base + i];
+			if ((g & touched) != 0) {
+				loose |= g & ~removed;
+				n--;
+				groups[base + i] = groups[base + n];
+				edges[base + i] = edges[base + n];
+			} else i++;
+		}
+		while (loose != 0) {
+			int g = flood(loose & -loose, loose);
+			groups[base + n] = g;
+			edges[base + n] = edgesOf(g);
+			n++;
+			loose &= ~g;
+		}
+		numGroups[color] = n;
+		roads &= ~(1 << color);
+		for (int i = 0; i < n; i++) {
+			if (isRoad(edges[base + i])) {
+				roads |= 1 << color;
+				break;
+			}
+		}
+	}
+
+	/** Set the masks for cell sq so that its top stone has the color in its stack and is a flat stone, or so that the
+	 * cell is empty if there are no stones. */
+	private void flattenTop(int sq) {
+		int bit = 1 << sq;
+		if ((standing & bit) != 0) hash ^= Zobrist.standing(sq);
+		if ((capstones & bit) != 0) hash ^= Zobrist.capstone(sq);
+		standing &= ~bit;
+		capstones &= ~bit;
+		long stack = stacks[sq];
+		if (stack == 0) {
+			whiteTop &= ~bit;
+			blackTop &= ~bit;
+			empty |= bit;
+		} else if ((stack & 1) == 0) {
+			whiteTop |= bit;
+			blackTop &= ~bit;
+			empty &= ~bit;
+		} else {
+			blackTop |= bit;
+			whiteTop &= ~bit;
+			empty &= ~bit;
+		}
+	}
+
+	/** Add a new stone of color c, type type, and status status to the board at (row, col). Raises IllegalMove if this
+	 * move is impossible. */
+	public void addStone(Stone.Color c, Stone.Type type, Stone.Status status, int row, int col) {
+		if (!isValidCell(row, col)) throw new Board.IllegalMove("Out of bounds");
+		int moveType = type == Stone.Type.CAPSTONE ? MoveTable.CAPSTONE :
+			status == Stone.Status.STANDING ? MoveTable.STANDING : MoveTable.FLAT;
+		addStone(c, moveType, square(row, col));
+	}
+
+	/** Add a new stone of color c to cell sq, where type is MoveTable.FLAT, MoveTable.STANDING, or MoveTable.CAPSTONE.
+	 * Raises IllegalMove if this move is impossible. */
+	public void addStone(Stone.Color c, int type, int sq) {
+		if ((empty & (1 << sq)) == 0) {
+			throw new Board.IllegalMove("Cannot place new stone onto occupied cell (" + sq / SIZE + "," + sq % SIZE +
+					")");
+		}
+		int oldWhite = pathMask(Stone.Color.WHITE);
+		int oldBlack = pathMask(Stone.Color.BLACK);
+		stacks[sq] = 1L << HEIGHT_SHIFT | colorIndex(c);
+		hash ^= Zobrist.stone(sq, 0, colorIndex(c));
+		flattenTop(sq);
+		if (type == MoveTable.CAPSTONE) {
+			capstones |= 1 << sq;
+			hash ^= Zobrist.capstone(sq);
+		} else if (type == MoveTable.STANDING) {
+			standing |= 1 << sq;
+			hash ^= Zobrist.standing(sq);
+		}
+		updateGroups(oldWhite, oldBlack);
+	}
+
+	/** Move the top n stones of the stack at (row, col) in the direction d, where drops specifies how many stones to
+	 * drop at each step. Raises IllegalMove and leaves this board unmodified if this cannot be completed. */
+	public void moveStack(int n, Board.Direction d, int[] drops, int row, int col) {
+		if (Board.sum(drops) != n) throw new Board.IllegalMove("Carry amount " + n + " does not match drops");
+		if (!isValidCell(row, col)) throw new Board.IllegalMove("Out of bounds");
+		int sq = square(row, col);
+		if (drops.length > MoveTable.DISTANCE[sq][d.ordinal()]) throw new Board.IllegalMove("Out of bounds");
+		for (int i = 0; i < drops.length; i++) {
+			if (drops[i] < 1) throw new Board.IllegalMove("Invalid drop amount " + drops[i]);
+		}
+		slide(sq, MoveTable.STEPS[d.ordinal()], n, drops);
+	}
+
+	/** Return the mask of cells that the stack move with code code would leave with a stone of color c on top.
+	 * Precondition: the stack at the cell of code has at least as many stones as code carries */
+	public int dropMask(int code, Stone.Color c) {
+		int sq = MoveTable.square(code);
+		int step = MoveTable.STEPS[MoveTable.direction(code)];
+		int[] drops = MoveTable.drops(code);
+		long stack = stacks[sq];
+		int color = colorIndex(c);
+		int left = MoveTable.carry(code);
+		int mask = 0;
+		for (int i = 0; i < drops.length; i++) {
+			// the carried stones are dropped from the bottom, so the new top stone is the one left places down
+			left -= drops[i];
+			if ((int) (stack >>> left & 1) == color) mask |= 1 << (sq + step * (i+1));
+		}
+		return mask;
+	}
+
+	/** Make the stack move with code code. Raises IllegalMove and leaves this board unmodified if this cannot be
+	 * completed. */
+	public void moveStack(int code) {
+		int sq = MoveTable.square(code);
+		int d = MoveTable.direction(code);
+		int[] drops = MoveTable.drops(code);
+		if (drops.length > MoveTable.DISTANCE[sq][d]) throw new Board.IllegalMove("Out of bounds");
+		slide(sq, MoveTable.STEPS[d], MoveTable.carry(code), drops);
+	}
+
+	/** Move the top n stones of cell sq step cells at a time, dropping drops[i] stones on the ith cell. Raises
+	 * IllegalMove and leaves this board unmodified if this cannot be completed.
+	 * Precondition: drops sum to n, have no zeros, and stay on the board */
+	private void slide(int sq, int step, int n, int[] drops) {
+		if (stacks[sq] == 0) throw new Board.IllegalMove("Can't move empty stack");
+		if (height(sq) < n) throw new Board.IllegalMove("Not enough stones");
+		if (n < 1 || n > Board.CARRY_LIMIT) throw new Board.IllegalMove("Invalid carry amount " + n);
+
+		// check every cell along the way before modifying anything
+		boolean movingCapstone = (capstones & 1 << sq) != 0;
+		int leftToDrop = n;
+		for (int i = 0; i < drops.length; i++) {
+			int bit = 1 << (sq + step * (i+1));
+			if ((capstones & bit) != 0) {
+				throw new Board.IllegalMove("Can't capture capstone");
+			} else if ((standing & bit) != 0 && !(movingCapstone && leftToDrop == 1)) {
+				throw new Board.IllegalMove("Can't topple standing stone");
+			}
+			leftToDrop -= drops[i];
+		}
+
+		// move is valid at this point
+		int oldWhite = pathMask(Stone.Color.WHITE);
+		int oldBlack = pathMask(Stone.Color.BLACK);
+		pickUp(sq, n);
+		int to = sq;
+		for (int i = 0; i < drops.length; i++) {
+			to += step;
+			drop(to, drops[i]);
+		}
+		putDown(to);
+		updateGroups(oldWhite, oldBlack);
+	}
+
+	// the stones being carried during a stack move, packed like a stack, and the type of the top stone being carried
+	private long carried;
+	private int carriedCapstone;
+	private int carriedStanding;
+
+	/** Pick up the top n stones of cell sq.
+	 * Precondition: height(sq) >= n */
+	private void pickUp(int sq, int n) {
+		int bit = 1 << sq;
+		long stack = stacks[sq];
+		carried = (long) n << HEIGHT_SHIFT | stack & ((1L << n) - 1);
+		carriedCapstone = capstones & bit;
+		carriedStanding = standing & bit;
+		int height = (int) (stack >>> HEIGHT_SHIFT);
+		for (int i = 0; i < n; i++) hash ^= Zobrist.stone(sq, height - 1 - i, (int) (stack >>> i) & 1);
+		stacks[sq] = (stack & ~COLOR_BITS) - ((long) n << HEIGHT_SHIFT) | (stack & COLOR_BITS) >>> n;
+		flattenTop(sq);
+	}
+
+	/** Drop the bottom k of the stones being carried onto cell to, flattening any standing stone there.
+	 * Precondition: at least k stones are being carried */
+	private void drop(int to, int k) {
+		int left = (int) (carried >>> HEIGHT_SHIFT) - k;
+		long dropped = carried >>> left & ((1L << k) - 1);
+		long stack = stacks[to];
+		int height = (int) (stack >>> HEIGHT_SHIFT);
+		for (int i = 0; i < k; i++) hash ^= Zobrist.stone(to, height + k - 1 - i, (int) (dropped >>> i) & 1);
+		stacks[to] = (stack & ~COLOR_BITS) + ((long) k << HEIGHT_SHIFT) | (stack & COLOR_BITS) << k | dropped;
+		carried = (long) left << HEIGHT_SHIFT | carried & ((1L << left) - 1);
+		flattenTop(to);
+	}
+
+	/** Give cell to, where the last stones were dropped, the type of the top stone that was carried. */
+	private void putDown(int to) {
+		if (carriedCapstone != 0) {
+			capstones |= 1 << to;
+			hash ^= Zobrist.capstone(to);
+		} else if (carriedStanding != 0) {
+			standing |= 1 << to;
+			hash ^= Zobrist.standing(to);
+		}
+	}
+
+	/** Save the masks and the stacks of the count cells starting at sq and going step cells at a time, so that the
+	 * next call to undo restores them. Every cell that the next change modifies must be saved. */
+	public void save(int sq, int step, int count) {
+		if (undoMasks == null || undoMasks.length < (numUndo + 1) * UNDO_MASKS) {
+			int capacity = undoMasks == null ? UNDO_CAPACITY : 2 * numUndo;
+			undoMasks = undoMasks == null ? new int[capacity * UNDO_MASKS] : Arrays.copyOf(undoMasks, capacity * UNDO_MASKS);
+			undoStacks = undoStacks == null ? new long[capacity * UNDO_STACKS] :
+				Arrays.copyOf(undoStacks, capacity * UNDO_STACKS);
+		}
+		int m = numUndo * UNDO_MASKS;
+		undoMasks[m] = whiteTop;
+		undoMasks[m+1] = blackTop;
+		undoMasks[m+2] = standing;
+		undoMasks[m+3] = capstones;
+		undoMasks[m+4] = empty;
+		undoMasks[m+5] = sq;
+		undoMasks[m+6] = step;
+		undoMasks[m+7] = count;
+		int st = numUndo * UNDO_STACKS;
+		for (int i = 0; i < count; i++) undoStacks[st + i] = stacks[sq + step * i];
+		undoStacks[st + SIZE] = hash;
+		numUndo++;
+	}
+
+	/** Throw away the most recent record made by save without restoring it. */
+	public void discard() {
+		numUndo--;
+	}
+
+	/** Restore the masks and stacks saved by the most recent call to save.
+	 * Precondition: there is a saved record */
+	public void undo() {
+		int oldWhite = pathMask(Stone.Color.WHITE);
+		int oldBlack = pathMask(Stone.Color.BLACK);
+		numUndo--;
+		int m = numUndo * UNDO_MASKS;
+		whiteTop = undoMasks[m];
+		blackTop = undoMasks[m+1];
+		standing = undoMasks[m+2];
+		capstones = undoMasks[m+3];
+		empty = undoMasks[m+4];
+		int sq = undoMasks[m+5];
+		int step = undoMasks[m+6];
+		int count = undoMasks[m+7];
+		int st = numUndo * UNDO_STACKS;
+		for (int i = 0; i < count; i++) stacks[sq + step * i] = undoStacks[st + i];
+		hash = undoStacks[st + SIZE];
+		updateGroups(oldWhite, oldBlack);
+	}
+
+	/** Return a clone of this board. Saved undo records are not copied. */
+	public BitBoard clone() {
+		return new BitBoard(whiteTop, blackTop, standing, capstones, empty, hash, stacks.clone(), groups.clone(),
+				edges.clone(), numGroups.clone(), roads);
+	}
+
+}
@@ -3,9 +3,9 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map.Entry;
-import java.lang.ArrayIndexOutOfBoundsException;
 
-/** A Board represents the state of a 5x5 Tak board */
+/** A Board represents the state of a 5x5 Tak board. It is a view of a BitBoard that gives the GUI stones and cells
+ * to work with. */
 public class Board implements Cloneable {
 
 	public static final int SIZE = 5;  // size of the board
@@ -22,76 +22,61 @@ public class Board implements Cloneable {
 		}
 	}
 
-	// cells of the board; (0,0) is bottom left
-	private LinkedList<Stone>[][] cells;
+	// the underlying board that this is a view of
+	private BitBoard bits;
 
 	/** Initialize an empty board */
 	public Board() {
-		cells = new LinkedList[SIZE][SIZE];
-		for (int i = 0; i < SIZE; i++) {
-			for (int j = 0; j < SIZE; j++) {
-				cells[i][j] = new LinkedList<Stone>();
-			}
-		}
+		bits = new BitBoard();
 	}
 
-	/** Initialize a board with a deep copy of oldCells.
-	 * Precondition: oldCells is not null and does not contain null in either of its two levels */
-	private Board(LinkedList<Stone>[][] oldCells) {
-		LinkedList<Stone>[][] newCells = new LinkedList[SIZE][SIZE];
-		for (int i = 0; i < SIZE; i++) {
-			for (int j = 0; j < SIZE; j++) {
-				LinkedList<Stone> newStones = new LinkedList<Stone>();
-				for (Stone oldStone : oldCells[i][j]) newStones.add(oldStone.clone());
-				newCells[i][j] = newStones;
-			}
-		}
-		cells = newCells;
+	/** Initialize a board that is a view of bits. */
+	private Board(BitBoard bits) {
+		this.bits = bits;
 	}
 
-	/** Return the stones in the cell at (row, col). Throws IllegalMove if out of bounds. */
-	public LinkedList<Stone> cellContents(int row, int col) {
-		try {
-			return cells[row][col];
-		} catch (ArrayIndexOutOfBoundsException e) {
-			throw new IllegalMove("Out of bounds");
-		}
+	/** Return the bitboard that this board is a view of. */
+	public BitBoard bits() {
+		return bits;
 	}
 
-	/** Return true if (row, col) is within the bounds of this board, false otherwise. */
-	private boolean isValidCell(int row, int col) {
-		return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
+	/** Return the stones in the cell at (row, col), with the top stone first. The list is a snapshot, so modifying it
+	 * does not modify this board. Throws IllegalMove if out of bounds. */
+	public LinkedList<Stone> cellContents(int row, int col) {
+		if (!BitBoard.isValidCell(row, col)) throw new IllegalMove("Out of bounds");
+		LinkedList<Stone> contents = new LinkedList<Stone>();
+		int sq = BitBoard.square(row, col);
+		for (int i = bits.height(sq) - 1; i >= 1; i--) {
+			contents.addFirst(new Stone(bits.colorAt(sq, i), Stone.Type.REGULAR, Stone.Status.FLAT));
+		}
+		Stone top = topStone(row, col);
+		if (top != null) contents.addFirst(top);
+		return contents;
 	}
 
 	/** Return the top stone at (row, col), null if there are none.
 	 * Precondition: (row, col) is a valid cell */
 	public Stone topStone(int row, int col) {
-		LinkedList<Stone> contents = cellContents(row, col);
-		if (contents.isEmpty()) return null;
-		else return contents.getFirst();
-	}
-
-	/** Return the top stone of the list of stones s, null if there is none. */
-	private Stone topStone(LinkedList<Stone> s) {
-		if (s.isEmpty()) return null;
-		else return s.getFirst();
+		if (!BitBoard.isValidCell(row, col)) throw new IllegalMove("Out of bounds");
+		int sq = BitBoard.square(row, col);
+		Stone.Color c = bits.topColor(sq);
+		if (c == null) return null;
+		int bit = 1 << sq;
+		if ((bits.capstoneMask() & bit) != 0) return new Stone(c, Stone.Type.CAPSTONE, Stone.Status.STANDING);
+		else if ((bits.standingMask() & bit) != 0) return new Stone(c, Stone.Type.REGULAR, Stone.Status.STANDING);
+		else return new Stone(c, Stone.Type.REGULAR, Stone.Status.FLAT);
 	}
 
 	/** Return the top color of the stone at (row, col), null if there are none. */
 	public Stone.Color topColor(int row, int col) {
-		Stone s = topStone(row, col);
-		if (s == null) return null;
-		else return s.getColor();
+		if (!BitBoard.isValidCell(row, col)) throw new IllegalMove("Out of bounds");
+		return bits.topColor(BitBoard.square(row, col));
 	}
 
 	/** Add a new stone to the board at (row, col). Raises IllegalMove if this move is impossible.
 	 * Precondition: row and col are less than SIZE */
 	public void addStone(Stone stone, int row, int col) {
-		if (topStone(row, col) != null) {
-			throw new IllegalMove("Cannot place new stone onto occupied cell (" + row + "," + col + ")");
-		} else if (!isValidCell(row, col)) {
-			throw new IllegalMove("Out of bounds");
-		} else cellContents(row, col).addFirst(stone);
+		bits.addStone(stone.getColor(), stone.getType(), stone.getStatus(), row, col);
 	}
 
 	/** Return the sum of the elements of e. */	
@@ -101,79 +86,12 @@ public class Board implements Cloneable {
 		return acc;
 	}
 
-	/** Move the top n stones of the stack at (row, col) in the direction d, performing a single drop. Return the pair
-	 * (row, col) of the cell on which the piece(s) is/were dropped. */
-	private Pair moveStackOnce(int n, Direction d, int row, int col) {
-		LinkedList<Stone> contents = cellContents(row, col);
-		if (n < 1 || n > CARRY_LIMIT || n > contents.size()) {
-			throw new IllegalMove("Invalid carry amount " + n);
-		}
-		LinkedList<Stone> nextContents;
-		int nextRow = row;
-		int nextCol = col;
-		switch (d) {
-		case NORTH:
-			nextRow++;
-			break;
-		case WEST:
-			nextCol--;;
-			break;
-		case SOUTH:
-			nextRow--;
-			break;
-		case EAST:
-			nextCol++;
-		}
-		try {
-			nextContents = cellContents(nextRow, nextCol);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			throw new IllegalMove("Out of bounds");
-		}
-		Stone topStoneNext = topStone(nextContents);
-		if (topStoneNext != null && topStoneNext.getType() == Stone.Type.CAPSTONE) {
-			throw new IllegalMove("Can't capture capstone");
-		} else if (topStoneNext != null && topStoneNext.getStatus() == Stone.Status.STANDING &&
-				contents.get(n-1).getType() == Stone.Type.REGULAR) {
-			throw new IllegalMove("Can't topple standing stone");
-		}
-
-		// move is valid at this point
-		if (topStoneNext != null && topStoneNext.getStatus() == Stone.Status.STANDING) {
-			topStoneNext.setStatus(Stone.Status.FLAT);
-		}
-		for (int i = n-1; i >= 0; i--) {
-			Stone toRemove = contents.get(i);
-			nextContents.addFirst(toRemove);
-			contents.remove(i);
-		}
-		return new Pair(nextRow, nextCol);
-	}
-
 	/** Move the top n stones of the stack at (row, col) in the direction d, where drop specifies how many stones to
 	 * drop at each step. Raises IllegalMove if this cannot be completed.
 	 * Precondition: number of pieces here <= n <= CARRY_LIMIT and n > 0
 	 *               The sum of the elements of drop is n. */
 	public void moveStack(int n, Direction d, int[] drops, int row, int col) {
-		if (sum(drops) != n) throw new IllegalMove("Carry amount " + n + " does not match drops");
-		if (!isValidCell(row, col)) throw new IllegalMove("Out of bounds");
-		if (topStone(row, col) == null) throw new IllegalMove("Can't move empty stack");
-		if (cellContents(row, col).size() < n) throw new IllegalMove("Not enough stones");
-		if (d == Direction.NORTH && row + drops.length >= SIZE ||
-				d == Direction.WEST && col - drops.length < 0 ||
-				d == Direction.SOUTH && row - drops.length < 0 ||
-				d == Direction.EAST && col + drops.length >= SIZE) {
-			throw new IllegalMove("Out of bounds");
-		}
-		int nextRow = row;
-		int nextCol = col;
-		int leftToDrop = n;
-		for (int i = 0; i < drops.length; i++) {
-			Pair nextRowCol = moveStackOnce(leftToDrop, d, nextRow, nextCol);
-			nextRow = nextRowCol.row;
-			nextCol = nextRowCol.col;
-			leftToDrop -= drops[i];
-		}
-
+		bits.moveStack(n, d, drops, row, col);
 	}
 
 	/** Return true if the stacks at (row1,col1) and (row2,col2) are next to each other and are part of the path for the
@@ -182,63 +100,40 @@ public class Board implements Cloneable {
 		int rowDiff = Math.abs(row1 - row2);
 		int colDiff = Math.abs(col1 - col2);
 		if (!(rowDiff == 1 && colDiff == 0 || rowDiff == 0 && colDiff == 1)) return false;
-		Stone s1 = topStone(row1, col1);
-		Stone s2 = topStone(row2, col2);
-		if (s1 == null || s2 == null) return false;
-		return c == s1.getColor() && c == s2.getColor() && s1.isPartOfPath() && s2.isPartOfPath();		
+		return ownsPath(c, row1, col1) && ownsPath(c, row2, col2);
 	}
 
 	/** Return true if the player with color c owns the stack at (row,col) and this stack is part of the path. */
 	public boolean ownsPath(Stone.Color c, int row, int col) {
-		Stone s = topStone(row, col);
-		return s != null && s.getColor() == c && s.isPartOfPath();
+		return (bits.pathMask(c) & 1 << BitBoard.square(row, col)) != 0;
 	}
 
 	/** Return true if the player with color c owns that stack at (row,col). */
 	public boolean ownsStack(Stone.Color c, int row, int col) {
-		Stone s = topStone(row, col);
-		return s != null && s.getColor() == c;
+		return (bits.ownedMask(c) & 1 << BitBoard.square(row, col)) != 0;
 	}
 
 	/** Return the number of stacks owned by a player with color c that are part of a path. */
 	public int numOwnedPath(Stone.Color c) {
-		int n = 0;
-		for (int i = 0; i < SIZE; i++) {
-			for (int j = 0; j < SIZE; j++) {
-				if (ownsPath(c, i, j)) n++;
-			}
-		}
-		return n;
+		return bits.numOwnedPath(c);
 	}
 
 	/** Return the number of stacks owned by the player with color c. */
 	public int numOwnedStacks(Stone.Color c) {
-		int n = 0;
-		for (int i = 0; i < SIZE; i++) {
-			for (int j = 0; j < SIZE; j++) {
-				if (ownsStack(c, i, j)) n++;
-			}
-		}
-		return n;
+		return bits.numOwnedStacks(c);
 	}
 
 	/** Return true if this board is full, false otherwise. */
 	public boolean isFull() {
-		for (int i = 0; i < SIZE; i++) {
-			for (int j = 0; j < SIZE; j++) {
-				if (topStone(i, j) == null) return false;
-			}
-		}
-		return true;
+		return bits.isFull();
 	}
 
 	/** Return an array of coordinates of all empty cells on this board. */
 	public ArrayList<Pair> emptyCells() {
 		ArrayList<Pair> cells = new ArrayList<Pair>();
-		for (int i = 0; i < SIZE; i++) {
-			for (int j = 0; j < SIZE; j++) {
-				if (topStone(i, j) == null) cells.add(new Pair(i, j));
-			}
+		for (int m = bits.emptyMask(); m != 0; m &= m - 1) {
+			int sq = Integer.numberOfTrailingZeros(m);
+			cells.add(new Pair(sq / SIZE, sq % SIZE));
 		}
 		return cells;
 	}
@@ -303,7 +198,7 @@ public class Board implements Cloneable {
 
 	/** Return a clone of this board. */
 	public Board clone() {
-		return new Board(cells);
+		return new Board(bits.clone());
 	}
 
 }
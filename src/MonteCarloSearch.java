@@ -0,0 +1,253 @@
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Chooses moves by Monte Carlo tree search with the UCT rule. Each playout walks down the tree from the root, picking
+ * the child with the best upper confidence bound on its winning rate, adds the children of the node it ends on once
+ * that node has been visited EXPAND_VISITS times, and finishes the game with random moves on a Playout board. The
+ * result is counted in every node of the walk. The move played is the child of the root with the most visits.
+ *
+ * Several threads can share one tree. A thread counts its visit in each node on the way down, before the result is
+ * known, which makes the node look worse to the other threads until the result arrives (a virtual loss), so they
+ * spread over different lines instead of all following the same one. Statistics are updated without locks; only
+ * adding the children of a node is synchronized. The subtree of the move played is kept, and reused by the next search
+ * if it reaches a position in it.
+ *
+ * Acknowledgment: UCT is described in "Bandit based Monte-Carlo Planning" by Kocsis and Szepesvari (ECML 2006), and
+ * virtual loss in "Parallel Monte-Carlo Tree Search" by Chaslot, Winands, and van den Herik (CG 2008). */
+public class MonteCarloSearch {
+
+	public static final double EXPLORATION = 0.7;  // weight of the exploration term of UCT, with rewards in [0, 1]
+	public static final int EXPAND_VISITS = 2;  // visits a leaf needs before its children are added
+	public static final int PLAYOUT_PLIES = 200;  // longest playout, after which the flat count decides the game
+	public static final int DEFAULT_MAX_NODES = 1 << 21;  // most nodes kept in the tree
+
+	// rewards of a playout, in half points
+	private static final int WIN = 2;
+	private static final int DRAW = 1;
+
+	/** A node of the tree, reached from its parent by one move. */
+	private static final class Node {
+		final int move;            // code of the move that leads here, Move.NO_MOVE at a new root
+		volatile Node[] children;  // null until the children are added
+		volatile int visits;       // walks through this node, counting the ones whose playout is still running
+		volatile int score;        // half points won by the player who made move, over the finished playouts
+		volatile long hash;        // hash of the state of this node, 0 until a walk first reaches it
+
+		Node(int move) {
+			this.move = move;
+		}
+	}
+
+	private static final AtomicIntegerFieldUpdater<Node> VISITS =
+			AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+	private static final AtomicIntegerFieldUpdater<Node> SCORE =
+			AtomicIntegerFieldUpdater.newUpdater(Node.class, "score");
+
+	private final int maxNodes;
+	private final AtomicLong numNodes = new AtomicLong();
+	private final AtomicLong playouts = new AtomicLong();  // playouts of the current search
+	private Node root;                // root of the current search, or the subtree kept from the last one
+	private Stone.Color rootColor;    // color of the player to move at the root
+	private Worker[] workers;
+	private volatile boolean stopped;
+	private volatile boolean stopRequested;  // true if stop was called since the last search ended
+	private long playoutBudget;
+	private boolean timed;
+	private long deadline;
+
+	/** Initialize a search whose tree holds at most maxNodes nodes.
+	 * Precondition: maxNodes > 0 */
+	public MonteCarloSearch(int maxNodes) {
+		if (maxNodes <= 0) throw new IllegalArgumentException("invalid node limit");
+		this.maxNodes = maxNodes;
+	}
+
+	/** An instance runs playouts on its own copy of the state of the root. */
+	private class Worker implements Runnable {
+
+		private final State s;
+		private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+		private final Playout board = new Playout(ThreadLocalRandom.current().nextLong());
+		private Node[] path = new Node[64];  // nodes of the current walk, from the root down
+
+		private Worker(State s) {
+			this.s = s;
+		}
+
+		public void run() {
+			while (!done()) playout();
+		}
+
+		/** Walk down the tree from the root, play the game out, count the result in the nodes of the walk, and undo
+		 * the moves again. */
+		private void playout() {
+			Node node = root;
+			int length = 0;
+			path[length++] = node;
+			VISITS.incrementAndGet(node);
+			int plies = 0;
+			while (s.getStatus(s.getPrevPlayer()) == State.GameStatus.ONGOING) {
+				Node[] children = node.children;
+				if (children == null) {
+					if (node.visits < EXPAND_VISITS || !expand(node)) break;
+					children = node.children;
+				}
+				node = select(node, children);
+				VISITS.incrementAndGet(node);
+				s.applyMove(node.move);
+				plies++;
+				if (node.hash == 0) node.hash = s.getHash();
+				if (length == path.length) path = Arrays.copyOf(path, 2 * length);
+				path[length++] = node;
+			}
+			board.load(s);
+			Stone.Color winner = winner(board.play(PLAYOUT_PLIES));
+			// node i of the walk was reached by a move of the player to move at the root if i is odd
+			for (int i = 0; i < length; i++) {
+				Stone.Color mover = i % 2 == 1 ? rootColor : rootColor.other();
+				SCORE.addAndGet(path[i], winner == null ? DRAW : winner == mover ? WIN : 0);
+			}
+			for (; plies > 0; plies--) s.undoMove();
+			playouts.incrementAndGet();
+		}
+
+		/** Add the children of node, whose state is s, in a random order so that the unvisited ones are not tried in
+		 * the order of the move generator. Return false if the tree is full. */
+		private boolean expand(Node node) {
+			synchronized (node) {
+				if (node.children != null) return true;
+				int n = MoveGenerator.generate(s, moves);
+				if (numNodes.get() + n > maxNodes) return false;
+				Node[] children = new Node[n];
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < n; i++) {
+					int j = random.nextInt(i + 1);
+					children[i] = children[j];
+					children[j] = new Node(moves[i]);
+				}
+				numNodes.addAndGet(n);
+				node.children = children;
+				return true;
+			}
+		}
+	}
+
+	/** Return the child of node with the highest upper confidence bound. Children that have not been visited come
+	 * first. */
+	private static Node select(Node node, Node[] children) {
+		double logVisits = Math.log(Math.max(1, node.visits));
+		Node best = children[0];
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (Node child : children) {
+			int visits = child.visits;
+			if (visits == 0) return child;
+			double value = child.score / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+			if (value > bestValue) {
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	/** Return the color of the player who won a game with status gs, null if it is a draw. */
+	private static Stone.Color winner(State.GameStatus gs) {
+		switch (gs) {
+		case PLAYER1_WIN:
+			return Stone.Color.WHITE;
+		case PLAYER2_WIN:
+			return Stone.Color.BLACK;
+		default:
+			return null;
+		}
+	}
+
+	/** Return true if the current search has used up its budget, and stop it if so. */
+	private boolean done() {
+		if (stopped) return true;
+		if (stopRequested || playouts.get() >= playoutBudget) stopped = true;
+		else if (timed && System.nanoTime() - deadline >= 0) stopped = true;
+		return stopped;
+	}
+
+	/** Return the code of the best move of the next player in s, found by running playouts on threads threads until
+	 * maxPlayouts playouts are done or millis milliseconds have passed, whichever comes first. A budget of 0
+	 * milliseconds means no time limit. If s is in the subtree kept from the last search, the search starts from what
+	 * is known about it. Moves are made on s and undone again, so s is unmodified when this returns.
+	 * Precondition: the game is not over in s; maxPlayouts > 0; threads > 0 */
+	public int search(State s, long maxPlayouts, long millis, int threads) {
+		root = reusedRoot(s.getHash());
+		if (root == null) {
+			root = new Node(Move.NO_MOVE);
+			root.hash = s.getHash();
+			numNodes.set(1);
+		} else {
+			numNodes.set(size(root));
+		}
+		rootColor = s.getNextPlayer().getColor();
+		playoutBudget = maxPlayouts;
+		timed = millis > 0;
+		deadline = System.nanoTime() + millis * 1000000;
+		stopped = false;
+		playouts.set(0);
+		if (workers == null || workers.length != threads) workers = new Worker[threads];
+		workers[0] = new Worker(s);
+		// the root always has children, so that there is a move to choose even if the tree is full
+		if (root.children == null) workers[0].expand(root);
+		Future<?>[] helpers = new Future<?>[threads - 1];
+		for (int i = 1; i < threads; i++) {
+			workers[i] = new Worker(s.clone());
+			helpers[i-1] = SearchExecutor.submit(workers[i]);
+		}
+		try {
+			workers[0].run();
+		} finally {
+			stopped = true;
+			stopRequested = false;
+			for (Future<?> helper : helpers) SearchExecutor.await(helper, 0);
+		}
+		Node best = root.children[0];
+		for (Node child : root.children) if (child.visits > best.visits) best = child;
+		// keep the subtree of the move played for the next search
+		root = best;
+		return best.move;
+	}
+
+	/** Make the current search return as soon as it can, with the most visited move so far. A stop requested while no
+	 * search is running stops the next one as soon as it starts. This may be called from any thread. */
+	public void stop() {
+		stopRequested = true;
+	}
+
+	/** Return the node of the kept subtree whose state has hash hash: its root, or a child of it, which is where the
+	 * next search starts if the other player has moved since the last one. Return null if there is none. */
+	private Node reusedRoot(long hash) {
+		if (root == null) return null;
+		if (root.hash == hash) return root;
+		Node[] children = root.children;
+		if (children != null) for (Node child : children) if (child.hash == hash) return child;
+		return null;
+	}
+
+	/** Return the number of nodes in the subtree of node. */
+	private static long size(Node node) {
+		long n = 1;
+		Node[] children = node.children;
+		if (children != null) for (Node child : children) n += size(child);
+		return n;
+	}
+
+	/** Return the number of playouts of the last search. */
+	public long getPlayouts() {
+		return playouts.get();
+	}
+
+	/** Return the number of nodes in the tree. */
+	public long getNodes() {
+		return numNodes.get();
+	}
+
+}
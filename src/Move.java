@@ -19,6 +19,9 @@ public class Move {
 		}
 	}
 
+	/** Code that does not stand for any move. */
+	public static final int NO_MOVE = -1;
+
 	private MoveType moveType = MoveType.PLACE_FLAT_STONE;  // type of move
 	private int row = -1;  // row of cell to modify
 	private int col = -1;  // column of cell to modify
@@ -107,6 +110,28 @@ public class Move {
 		if (Board.sum(drops) != n) throw new IllegalCommand(s);
 	}
 
+	/** Return this move packed into an int: the cell in bits 0-4, the MoveType in bits 5-6, the direction in bits 7-8,
+	 * the carry amount in bits 9-11, and the index of the drop pattern in AIPlayer.PARTITIONS in bits 12-15. Return
+	 * NO_MOVE if this move cannot be packed, such as a drop pattern that is not in AIPlayer.PARTITIONS. MoveTable reads
+	 * and builds these codes. */
+	public int toCode() {
+		if (!BitBoard.isValidCell(row, col)) return NO_MOVE;
+		int sq = BitBoard.square(row, col);
+		if (moveType != MoveType.MOVE_STACK) return MoveTable.code(moveType.ordinal(), sq);
+		if (n < 1 || n > Board.CARRY_LIMIT) return NO_MOVE;
+		int[][] patterns = MoveTable.DROPS[n];
+		for (int k = 0; k < patterns.length; k++) {
+			if (Arrays.equals(patterns[k], drops)) return MoveTable.code(sq, direction.ordinal(), n, k);
+		}
+		return NO_MOVE;
+	}
+
+	/** Return the move packed into code by toCode.
+	 * Precondition: code is not NO_MOVE */
+	public static Move fromCode(int code) {
+		return new Move(MoveTable.toString(code));
+	}
+
 	/** Return a string representation of the drop pattern i. */
 	private static String dropToString(int[] ds) {
 		String s = "";
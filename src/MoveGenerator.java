@@ -0,0 +1,138 @@
+/** Generates the legal moves of a state as move codes (see MoveTable). Stack moves are found by looking at what each
+ * stack would run into, so no move is ever made or rejected with an exception to find out whether it is legal. */
+public class MoveGenerator {
+
+	/** Most moves that can be legal in a single state: every placement, and every drop pattern of 5 stones in every
+	 * direction from every cell. */
+	public static final int MAX_MOVES = 3 * BitBoard.NUM_CELLS +
+			BitBoard.NUM_CELLS * MoveTable.NUM_DIRECTIONS * (1 + 2 + 4 + 8 + 15);
+
+	/** FLATTEN_MOVES[sq][d][n][len] holds the codes of MoveTable.STACK_MOVES[sq][d][n][len] whose last drop is a single
+	 * stone, which are the moves that can flatten a standing stone with a capstone on their last cell. */
+	public static final int[][][][][] FLATTEN_MOVES =
+			new int[BitBoard.NUM_CELLS][MoveTable.NUM_DIRECTIONS][Board.CARRY_LIMIT + 1][BitBoard.SIZE][];
+
+	static {
+		for (int sq = 0; sq < BitBoard.NUM_CELLS; sq++) {
+			for (int d = 0; d < MoveTable.NUM_DIRECTIONS; d++) {
+				for (int n = 1; n <= Board.CARRY_LIMIT; n++) {
+					for (int len = 0; len < BitBoard.SIZE; len++) {
+						int[] codes = MoveTable.STACK_MOVES[sq][d][n][len];
+						int count = 0;
+						for (int code : codes) if (endsWithOne(code)) count++;
+						FLATTEN_MOVES[sq][d][n][len] = new int[count];
+						count = 0;
+						for (int code : codes) if (endsWithOne(code)) FLATTEN_MOVES[sq][d][n][len][count++] = code;
+					}
+				}
+			}
+		}
+	}
+
+	/** Return true if the last drop of the stack move with code code is a single stone. */
+	private static boolean endsWithOne(int code) {
+		int[] drops = MoveTable.drops(code);
+		return drops[drops.length - 1] == 1;
+	}
+
+	/** Put the codes of every legal move of the next player in s into moves, starting at index 0, and return how many
+	 * there are. No moves are returned if the game is over.
+	 * Precondition: moves has room for MAX_MOVES codes */
+	public static int generate(State s, int[] moves) {
+		if (s.getStatus(s.getPrevPlayer()) != State.GameStatus.ONGOING) return 0;
+		int count = generatePlacements(s, moves, 0);
+		return generateStackMoves(s, moves, count);
+	}
+
+	/** Put the codes of every legal placement of the next player in s into moves, starting at index start, and return
+	 * the index after the last one. */
+	public static int generatePlacements(State s, int[] moves, int start) {
+		Player p = s.getNextPlayer();
+		int count = start;
+		if (p.isOut()) return count;
+		for (int m = s.getBoard().bits().emptyMask(); m != 0; m &= m - 1) {
+			int sq = Integer.numberOfTrailingZeros(m);
+			if (p.stones > 0) {
+				moves[count++] = MoveTable.code(MoveTable.FLAT, sq);
+				moves[count++] = MoveTable.code(MoveTable.STANDING, sq);
+			}
+			if (p.capstones > 0) moves[count++] = MoveTable.code(MoveTable.CAPSTONE, sq);
+		}
+		return count;
+	}
+
+	/** Put the codes of every legal stack move of the next player in s into moves, starting at index start, and return
+	 * the index after the last one. */
+	public static int generateStackMoves(State s, int[] moves, int start) {
+		BitBoard b = s.getBoard().bits();
+		int count = start;
+		for (int m = b.ownedMask(s.getNextPlayer().getColor()); m != 0; m &= m - 1) {
+			int sq = Integer.numberOfTrailingZeros(m);
+			count = generateStackMoves(b, sq, moves, count);
+		}
+		return count;
+	}
+
+	/** Put the codes of every legal move of the stack at cell sq of b into moves, starting at index start, and return
+	 * the index after the last one.
+	 * Precondition: there is a stack at sq */
+	public static int generateStackMoves(BitBoard b, int sq, int[] moves, int start) {
+		int count = start;
+		int maxCarry = Math.min(Board.CARRY_LIMIT, b.height(sq));
+		int blockers = b.standingMask() | b.capstoneMask();
+		boolean capstone = (b.capstoneMask() & 1 << sq) != 0;
+		for (int d = 0; d < MoveTable.NUM_DIRECTIONS; d++) {
+			// count the free cells before the edge or the first standing stone or capstone
+			int step = MoveTable.STEPS[d];
+			int distance = MoveTable.DISTANCE[sq][d];
+			int free = 0;
+			while (free < distance && (blockers & 1 << (sq + step * (free+1))) == 0) free++;
+			// a capstone can flatten a standing stone right after the free cells if it gets there alone
+			int flattenAt = capstone && free < distance && (b.standingMask() & 1 << (sq + step * (free+1))) != 0 ?
+					free + 1 : 0;
+			for (int n = 1; n <= maxCarry; n++) {
+				int[][] byLength = MoveTable.STACK_MOVES[sq][d][n];
+				for (int len = 1; len <= free && len <= n; len++) {
+					int[] codes = byLength[len];
+					System.arraycopy(codes, 0, moves, count, codes.length);
+					count += codes.length;
+				}
+				if (flattenAt != 0 && flattenAt <= n) {
+					int[] codes = FLATTEN_MOVES[sq][d][n][flattenAt];
+					System.arraycopy(codes, 0, moves, count, codes.length);
+					count += codes.length;
+				}
+			}
+		}
+		return count;
+	}
+
+	/** Return true if the move with code code is legal for the next player in s. This lets a move that came from
+	 * somewhere other than generate, such as a transposition table, be checked without making it. */
+	public static boolean isLegal(State s, int code) {
+		if (!MoveTable.isValid(code)) return false;
+		BitBoard b = s.getBoard().bits();
+		Player p = s.getNextPlayer();
+		int sq = MoveTable.square(code);
+		int type = MoveTable.type(code);
+		if (type != MoveTable.STACK) {
+			if ((b.emptyMask() & 1 << sq) == 0) return false;
+			return type == MoveTable.CAPSTONE ? p.capstones > 0 : p.stones > 0;
+		}
+		int n = MoveTable.carry(code);
+		if ((b.ownedMask(p.getColor()) & 1 << sq) == 0 || b.height(sq) < n) return false;
+		int d = MoveTable.direction(code);
+		int[] drops = MoveTable.drops(code);
+		if (drops.length > MoveTable.DISTANCE[sq][d]) return false;
+		boolean capstone = (b.capstoneMask() & 1 << sq) != 0;
+		int leftToDrop = n;
+		for (int i = 0; i < drops.length; i++) {
+			int bit = 1 << (sq + MoveTable.STEPS[d] * (i+1));
+			if ((b.capstoneMask() & bit) != 0) return false;
+			if ((b.standingMask() & bit) != 0 && !(capstone && leftToDrop == 1)) return false;
+			leftToDrop -= drops[i];
+		}
+		return true;
+	}
+
+}
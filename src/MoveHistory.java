@@ -0,0 +1,71 @@
+import java.util.Arrays;
+
+/** What a search has learned about which quiet moves cause cutoffs, used to order the quiet moves of later nodes
+ * without evaluating them: two killer moves for each ply, a history score for each move code of each color, and the
+ * countermove that last refuted each move code. Each thread of a search has its own history. */
+public class MoveHistory {
+
+	public static final int KILLERS_PER_PLY = 2;
+	private static final int NUM_CODES = 1 << 16;
+	private static final int HISTORY_LIMIT = 1 << 24;  // all scores are halved when one would pass this
+
+	private final int[][] killers;
+	private final int[] history = new int[2 * NUM_CODES];
+	private final int[] countermoves = new int[NUM_CODES];
+
+	/** Initialize an empty history for searches of at most maxPly plies. */
+	public MoveHistory(int maxPly) {
+		killers = new int[maxPly + 1][KILLERS_PER_PLY];
+		clear();
+	}
+
+	/** Forget everything. */
+	public void clear() {
+		for (int[] k : killers) Arrays.fill(k, Move.NO_MOVE);
+		Arrays.fill(history, 0);
+		Arrays.fill(countermoves, Move.NO_MOVE);
+	}
+
+	/** Get ready for a new search: the killers of the last one are for other positions, and its history scores count
+	 * for half as much as the ones that are still to come. */
+	public void age() {
+		for (int[] k : killers) Arrays.fill(k, Move.NO_MOVE);
+		for (int i = 0; i < history.length; i++) history[i] >>= 1;
+	}
+
+	/** Return the ith killer move of ply ply, Move.NO_MOVE if there is none. */
+	public int killer(int ply, int i) {
+		return killers[ply][i];
+	}
+
+	/** Return the move that last refuted the move with code previous, Move.NO_MOVE if there is none. */
+	public int countermove(int previous) {
+		return previous == Move.NO_MOVE ? Move.NO_MOVE : countermoves[previous];
+	}
+
+	/** Return the history score of the move with code m made by the player with color c. */
+	public int score(Stone.Color c, int m) {
+		return history[index(c, m)];
+	}
+
+	private static int index(Stone.Color c, int m) {
+		return (c == Stone.Color.WHITE ? 0 : NUM_CODES) + m;
+	}
+
+	/** Record that the quiet move m made by the player with color c at ply ply caused a cutoff in a node searched to
+	 * depth depth, which was reached by the move with code previous. */
+	public void cutoff(Stone.Color c, int ply, int previous, int m, int depth) {
+		int[] k = killers[ply];
+		if (k[0] != m) {
+			k[1] = k[0];
+			k[0] = m;
+		}
+		if (previous != Move.NO_MOVE) countermoves[previous] = m;
+		int i = index(c, m);
+		history[i] += depth * depth;
+		if (history[i] > HISTORY_LIMIT) {
+			for (int j = 0; j < history.length; j++) history[j] >>= 1;
+		}
+	}
+
+}
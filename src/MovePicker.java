@@ -0,0 +1,248 @@
+/** Hands out the legal moves of a node of the search one at a time, in stages: the move from the transposition table,
+ * then placements that win or threaten a road, then stack moves that capture stacks or flatten standing stones, then
+ * the killer moves and countermove from the MoveHistory, then the quiet moves that are left in order of their history
+ * scores. A stage is only generated and ordered once the stages before it are used up, so a node that is cut off early
+ * never pays for the rest, and no move is made just to order it. A picker is reused for every node at the same ply of
+ * a search, so handing out moves does not allocate. */
+public class MovePicker {
+
+	// stages, in the order that they are handed out
+	private static final int TABLE = 0;
+	private static final int GENERATE_WINS = 1;
+	private static final int WINS = 2;
+	private static final int GENERATE_CAPTURES = 3;
+	private static final int CAPTURES = 4;
+	private static final int KILLERS = 5;
+	private static final int GENERATE_QUIET = 6;
+	private static final int QUIET = 7;
+	private static final int DONE = 8;
+
+	// scores of placements in the WINS stage
+	private static final float ROAD = 2;
+	private static final float THREAT = 1;
+
+	private static final int NUM_SPECIAL = MoveHistory.KILLERS_PER_PLY + 1;  // killers and the countermove
+
+	private final MoveHistory history;  // orders the quiet moves
+
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];      // moves of the current stage
+	private final float[] scores = new float[MoveGenerator.MAX_MOVES];  // score of each move of the current stage
+	private final int[] quiet = new int[MoveGenerator.MAX_MOVES];      // moves left for the QUIET stage
+	private int numQuiet;
+	private final int[] special = new int[NUM_SPECIAL];  // killers and countermove handed out in the KILLERS stage
+	private int numSpecial;
+	private int cur;  // index of the next move of the current stage
+	private int end;  // index after the last move of the current stage
+
+	private State state;
+	private int tableMove;
+	private int ply;
+	private int stage = DONE;
+	private boolean lastQuiet;  // true if the move handed out last is quiet
+
+	/** Initialize a picker whose quiet moves are ordered by history. */
+	public MovePicker(MoveHistory history) {
+		this.history = history;
+	}
+
+	/** Start handing out the moves of the next player in s, which is ply plies from the root of the search, beginning
+	 * with tableMove if it is legal. s must not be changed between calls to next, except by moves that are undone
+	 * again.
+	 * Precondition: the game is not over in s */
+	public void reset(State s, int tableMove, int ply) {
+		state = s;
+		this.tableMove = tableMove;
+		this.ply = ply;
+		stage = TABLE;
+		numQuiet = 0;
+		numSpecial = 0;
+		cur = 0;
+		end = 0;
+	}
+
+	/** Return true if the move handed out last by next neither wins, threatens a road, captures, nor flattens, which
+	 * are the moves whose cutoffs are recorded in the history. */
+	public boolean lastWasQuiet() {
+		return lastQuiet;
+	}
+
+	/** Return the code of the next move, Move.NO_MOVE if every move has been handed out. */
+	public int next() {
+		while (true) {
+			switch (stage) {
+			case TABLE:
+				stage = GENERATE_WINS;
+				if (tableMove != Move.NO_MOVE && MoveGenerator.isLegal(state, tableMove)) {
+					lastQuiet = isQuiet(tableMove);
+					return tableMove;
+				}
+				tableMove = Move.NO_MOVE;
+				break;
+			case GENERATE_WINS:
+				generateWins();
+				stage = WINS;
+				lastQuiet = false;
+				break;
+			case WINS:
+			case CAPTURES:
+			case QUIET:
+				if (cur < end) return pickBest();
+				stage++;
+				if (stage == KILLERS) cur = 0;
+				break;
+			case KILLERS:
+				while (cur < NUM_SPECIAL) {
+					int m = cur < MoveHistory.KILLERS_PER_PLY ? history.killer(ply, cur) :
+						history.countermove(state.getLastMoveCode());
+					cur++;
+					if (isSpecial(m)) {
+						special[numSpecial++] = m;
+						lastQuiet = true;
+						return m;
+					}
+				}
+				stage = GENERATE_QUIET;
+				break;
+			case GENERATE_CAPTURES:
+				generateCaptures();
+				stage = CAPTURES;
+				break;
+			case GENERATE_QUIET:
+				scoreQuiet();
+				stage = QUIET;
+				break;
+			default:
+				return Move.NO_MOVE;
+			}
+		}
+	}
+
+	/** Return true if m can be handed out in the KILLERS stage: it is a legal quiet move that has not been handed out
+	 * already. */
+	private boolean isSpecial(int m) {
+		if (m == Move.NO_MOVE || m == tableMove) return false;
+		for (int i = 0; i < numSpecial; i++) if (special[i] == m) return false;
+		return MoveGenerator.isLegal(state, m) && isQuiet(m);
+	}
+
+	/** Return true if the legal move m would be set aside for the QUIET stage. */
+	private boolean isQuiet(int m) {
+		BitBoard b = state.getBoard().bits();
+		Stone.Color c = state.getNextPlayer().getColor();
+		switch (MoveTable.type(m)) {
+		case MoveTable.STANDING:
+			return true;
+		case MoveTable.STACK:
+			return captureScore(b, c, m) <= 0;
+		default:
+			return placementScore(b, c, MoveTable.square(m)) == 0;
+		}
+	}
+
+	/** Move the best of the moves left in the current stage to cur, and return it. */
+	private int pickBest() {
+		int best = cur;
+		for (int i = cur + 1; i < end; i++) if (scores[i] > scores[best]) best = i;
+		int m = moves[best];
+		float score = scores[best];
+		moves[best] = moves[cur];
+		scores[best] = scores[cur];
+		moves[cur] = m;
+		scores[cur] = score;
+		cur++;
+		return m;
+	}
+
+	/** Keep the placements that make a road or come within a cell of spanning the board for the WINS stage, and set
+	 * the rest aside for the QUIET stage. */
+	private void generateWins() {
+		int n = MoveGenerator.generatePlacements(state, quiet, numQuiet);
+		BitBoard b = state.getBoard().bits();
+		Stone.Color c = state.getNextPlayer().getColor();
+		cur = 0;
+		end = 0;
+		for (int i = numQuiet; i < n; i++) {
+			int m = quiet[i];
+			if (m == tableMove) continue;
+			float score = MoveTable.type(m) == MoveTable.STANDING ? 0 : placementScore(b, c, MoveTable.square(m));
+			if (score > 0) {
+				moves[end] = m;
+				scores[end++] = score;
+			} else {
+				quiet[numQuiet++] = m;
+			}
+		}
+	}
+
+	/** Return ROAD if a stone of color c that is part of a path on cell sq of b makes a road, THREAT if it joins a group
+	 * that spans all but one row or column, and 0 otherwise. The groups of b are used, so no filling is needed. */
+	private static float placementScore(BitBoard b, Stone.Color c, int sq) {
+		int joined = 1 << sq;
+		int near = BitBoard.grow(joined);
+		for (int i = 0; i < b.numGroups(c); i++) {
+			if ((b.group(c, i) & near) != 0) joined |= b.group(c, i);
+		}
+		if (BitBoard.isRoad(BitBoard.edgesOf(joined))) return ROAD;
+		return span(joined) >= BitBoard.SIZE - 1 ? THREAT : 0;
+	}
+
+	/** Return the larger of the number of rows and the number of columns that have a cell in mask m. */
+	private static int span(int m) {
+		int rows = 0;
+		int cols = 0;
+		for (int i = 0; i < BitBoard.SIZE; i++) {
+			if ((m & BitBoard.BOTTOM_EDGE << (i * BitBoard.SIZE)) != 0) rows++;
+			if ((m & BitBoard.LEFT_EDGE << i) != 0) cols++;
+		}
+		return Math.max(rows, cols);
+	}
+
+	/** Keep the stack moves that capture stacks of the other player or flatten a standing stone for the CAPTURES
+	 * stage, and set the rest aside for the QUIET stage. */
+	private void generateCaptures() {
+		int n = MoveGenerator.generateStackMoves(state, quiet, numQuiet);
+		BitBoard b = state.getBoard().bits();
+		Stone.Color c = state.getNextPlayer().getColor();
+		cur = 0;
+		end = 0;
+		for (int i = numQuiet; i < n; i++) {
+			int m = quiet[i];
+			if (m == tableMove) continue;
+			int score = captureScore(b, c, m);
+			if (score > 0) {
+				moves[end] = m;
+				scores[end++] = score;
+			} else {
+				quiet[numQuiet++] = m;
+			}
+		}
+	}
+
+	/** Return the number of stacks of the other player that the stack move m of the player with color c on b covers
+	 * with a stone of color c, minus the number of stacks of color c it covers with a stone of the other color, plus 1
+	 * if it flattens a standing stone. */
+	private static int captureScore(BitBoard b, Stone.Color c, int m) {
+		int cells = MoveTable.dropCells(m);
+		int mine = b.dropMask(m, c);
+		return Integer.bitCount(mine & b.ownedMask(c.other())) - Integer.bitCount(cells & ~mine & b.ownedMask(c)) +
+				Integer.bitCount(cells & b.standingMask());
+	}
+
+	/** Order the moves set aside for the QUIET stage by their history scores, leaving out the ones that were handed
+	 * out in the KILLERS stage. */
+	private void scoreQuiet() {
+		Stone.Color c = state.getNextPlayer().getColor();
+		cur = 0;
+		end = 0;
+		for (int i = 0; i < numQuiet; i++) {
+			int m = quiet[i];
+			boolean handedOut = false;
+			for (int j = 0; j < numSpecial; j++) handedOut |= special[j] == m;
+			if (handedOut) continue;
+			moves[end] = m;
+			scores[end++] = history.score(c, m);
+		}
+		lastQuiet = true;
+	}
+
+}
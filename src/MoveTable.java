@@ -0,0 +1,132 @@
+/** Precomputed tables of move codes, along with the functions for reading them. A move code packs a move into an int as
+ * described in Move.toCode, so that the search can generate, store, and make moves without building Move objects or
+ * strings. Move objects are only needed where a move is shown to or read from a person. */
+public class MoveTable {
+
+	/** Types of a move, which are the ordinals of Move.MoveType */
+	public static final int FLAT = 0;
+	public static final int STANDING = 1;
+	public static final int CAPSTONE = 2;
+	public static final int STACK = 3;
+
+	/** Directions of a stack move, which are the ordinals of Board.Direction */
+	public static final int NORTH = 0;
+	public static final int WEST = 1;
+	public static final int SOUTH = 2;
+	public static final int EAST = 3;
+	public static final int NUM_DIRECTIONS = 4;
+
+	/** STEPS[d] is the amount to add to a cell index to move one cell in direction d. */
+	public static final int[] STEPS = new int[] {BitBoard.SIZE, -1, -BitBoard.SIZE, 1};
+
+	/** DROPS[n][k] is the drop pattern AIPlayer.PARTITIONS[n][k] as an array. */
+	public static final int[][][] DROPS = new int[Board.CARRY_LIMIT + 1][][];
+
+	/** DISTANCE[sq][d] is the number of cells between cell sq and the edge of the board in direction d. */
+	public static final int[][] DISTANCE = new int[BitBoard.NUM_CELLS][NUM_DIRECTIONS];
+
+	/** STACK_MOVES[sq][d][n][len] holds the codes of every move of n stones from cell sq in direction d that drops
+	 * stones on exactly len cells. Only moves that stay on the board are included, so len <= DISTANCE[sq][d]. */
+	public static final int[][][][][] STACK_MOVES =
+			new int[BitBoard.NUM_CELLS][NUM_DIRECTIONS][Board.CARRY_LIMIT + 1][BitBoard.SIZE][];
+
+	static {
+		for (int n = 1; n <= Board.CARRY_LIMIT; n++) {
+			String[] patterns = AIPlayer.PARTITIONS[n];
+			DROPS[n] = new int[patterns.length][];
+			for (int k = 0; k < patterns.length; k++) {
+				DROPS[n][k] = new int[patterns[k].length()];
+				for (int i = 0; i < patterns[k].length(); i++) DROPS[n][k][i] = patterns[k].charAt(i) - '0';
+			}
+		}
+		for (int sq = 0; sq < BitBoard.NUM_CELLS; sq++) {
+			int row = sq / BitBoard.SIZE;
+			int col = sq % BitBoard.SIZE;
+			DISTANCE[sq][NORTH] = BitBoard.SIZE - 1 - row;
+			DISTANCE[sq][WEST] = col;
+			DISTANCE[sq][SOUTH] = row;
+			DISTANCE[sq][EAST] = BitBoard.SIZE - 1 - col;
+			for (int d = 0; d < NUM_DIRECTIONS; d++) {
+				for (int n = 1; n <= Board.CARRY_LIMIT; n++) {
+					for (int len = 0; len < BitBoard.SIZE; len++) {
+						int count = 0;
+						for (int[] drops : DROPS[n]) if (drops.length == len && len <= DISTANCE[sq][d]) count++;
+						int[] codes = new int[count];
+						count = 0;
+						for (int k = 0; k < DROPS[n].length; k++) {
+							if (DROPS[n][k].length == len && len <= DISTANCE[sq][d]) codes[count++] = code(sq, d, n, k);
+						}
+						STACK_MOVES[sq][d][n][len] = codes;
+					}
+				}
+			}
+		}
+	}
+
+	/** Return the code of placing a stone of type type (FLAT, STANDING, or CAPSTONE) on cell sq. */
+	public static int code(int type, int sq) {
+		return sq | type << 5;
+	}
+
+	/** Return the code of moving n stones from cell sq in direction d with the drop pattern DROPS[n][k]. */
+	public static int code(int sq, int d, int n, int k) {
+		return sq | STACK << 5 | d << 7 | n << 9 | k << 12;
+	}
+
+	/** Return true if code is the code of a move, whether or not that move is legal anywhere. */
+	public static boolean isValid(int code) {
+		if (code < 0 || code >= 1 << 16 || square(code) >= BitBoard.NUM_CELLS) return false;
+		if (type(code) != STACK) return code == code(type(code), square(code));
+		int n = carry(code);
+		return n >= 1 && n <= Board.CARRY_LIMIT && pattern(code) < DROPS[n].length;
+	}
+
+	/** Return the cell of the move with code code. */
+	public static int square(int code) {
+		return code & 31;
+	}
+
+	/** Return the type (FLAT, STANDING, CAPSTONE, or STACK) of the move with code code. */
+	public static int type(int code) {
+		return code >>> 5 & 3;
+	}
+
+	/** Return the direction of the stack move with code code. */
+	public static int direction(int code) {
+		return code >>> 7 & 3;
+	}
+
+	/** Return the number of stones carried by the stack move with code code. */
+	public static int carry(int code) {
+		return code >>> 9 & 7;
+	}
+
+	/** Return the index in DROPS[carry(code)] of the drop pattern of the stack move with code code. */
+	public static int pattern(int code) {
+		return code >>> 12 & 15;
+	}
+
+	/** Return the drop pattern of the stack move with code code. */
+	public static int[] drops(int code) {
+		return DROPS[carry(code)][pattern(code)];
+	}
+
+	/** Return the mask of the cells that the stack move with code code drops stones on. */
+	public static int dropCells(int code) {
+		int sq = square(code);
+		int step = STEPS[direction(code)];
+		int cells = 0;
+		for (int i = 1; i <= drops(code).length; i++) cells |= 1 << (sq + step * i);
+		return cells;
+	}
+
+	/** Return the string notation of the move with code code, as read by the Move constructor. */
+	public static String toString(int code) {
+		int sq = square(code);
+		String s = "FSCM".charAt(type(code)) + "(" + sq / BitBoard.SIZE + "," + sq % BitBoard.SIZE + ")";
+		if (type(code) != STACK) return s;
+		String pattern = AIPlayer.PARTITIONS[carry(code)][pattern(code)];
+		return s + "+<->".charAt(direction(code)) + carry(code) + "[" + pattern + "]";
+	}
+
+}
@@ -0,0 +1,388 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Counts the positions reached by every sequence of legal moves of a given length (perft), to check the move
+ * generator against known counts and to measure how fast it is. A game that is over has no moves, so a game that ends
+ * before the given length contributes no positions. Run it as "java Perft [options] depth [moves]", where moves are
+ * the moves from the start that lead to the position to count from, written as the Move constructor reads them. The
+ * options are:
+ *
+ *   -threads N   number of threads, the number of cores by default
+ *   -hash N      megabytes of the table of counts of positions already seen, none by default
+ *   -nobulk      make and count every move of the last ply instead of counting the moves of its positions
+ *   -table       count the moves of the last ply with the tables of Playout instead of generating them
+ *   -check       check at every position that the generated moves are the ones the rules allow, that the tables of
+ *                Playout count as many, and that undoing every move restores the position, and stop at the first
+ *                position where this fails
+ *   -divide      print the count under each move from the position as well as the total
+ *   -verify      count from the start to depths 1 through KNOWN.length and compare with KNOWN, ignoring depth and
+ *                moves
+ *
+ * The moves the rules allow are found without MoveTable or MoveGenerator: every placement and every carry amount and
+ * drop pattern of every stack is written out as a Move. A placement is legal if Board.addStone takes it on a copy of
+ * the board, and a stack move if the rules checked cell by cell on the stones of the board allow it, in which case
+ * Board.moveStack must take it too. This catches a wrong entry in the tables that the generator and the playouts
+ * share.
+ *
+ * The counts from the start under the rules of this game, in which the first moves are not swapped, are 75, 5,400,
+ * 348,080, and 21,536,636 for depths 1 through 4 (KNOWN), and 1,266,328,304 for depth 5.
+ *
+ * The moves from the position are split over the threads of a fork-join pool, each searching its own copy of the
+ * state. Positions that are reached again by other moves are only counted once if the table is used: the count of a
+ * position at each depth is kept by its hash, and entries are replaced freely, so a full table only costs time. */
+public class Perft {
+
+	public static final int ENTRY_BYTES = 8 + 8;
+	// KNOWN[d-1] is the count of positions from the start at depth d
+	public static final long[] KNOWN = {75, 5400, 348080, 21536636};
+
+	private final boolean bulk;
+	private final boolean table;
+	private final boolean check;
+	// entry i of the hash table holds a count in counts[i] and its key XORed with that count in keys[i], so that an
+	// entry torn by a write of another thread fails the key check instead of returning the wrong count
+	private final long[] keys;
+	private final long[] counts;
+	private final int mask;
+	private final AtomicLong hits = new AtomicLong();
+
+	/** Initialize a counter with a hash table of megabytes megabytes, none if it is 0, that counts the moves of the
+	 * last ply without making them if bulk is true, using the tables of Playout if table is true, and checks every
+	 * position if check is true.
+	 * Precondition: megabytes >= 0 */
+	public Perft(int megabytes, boolean bulk, boolean table, boolean check) {
+		if (megabytes < 0) throw new IllegalArgumentException("invalid table size");
+		this.bulk = bulk;
+		this.table = table;
+		this.check = check;
+		int entries = 0;
+		if (megabytes > 0) {
+			// the largest power of two that fits, so that the index is a mask of the key
+			entries = Integer.highestOneBit((int) Math.min(1 << 30, (long) megabytes * (1 << 20) / ENTRY_BYTES));
+		}
+		keys = new long[entries];
+		counts = new long[entries];
+		mask = entries - 1;
+	}
+
+	/** An instance counts positions from its own copy of a state. */
+	private class Counter {
+
+		private final State s;
+		private final int[][] moves;  // moves[d] holds the moves of the position depth d from the end
+		private final Playout board = new Playout(0);
+
+		private Counter(State s, int depth) {
+			this.s = s;
+			moves = new int[depth + 1][MoveGenerator.MAX_MOVES];
+		}
+
+		/** Return the number of positions depth moves from s. */
+		private long count(int depth) {
+			if (depth == 0) return 1;
+			if (bulk && depth == 1 && table && !check) {
+				board.load(s);
+				return board.numMoves();
+			}
+			long key = 0;
+			if (depth > 1 && keys.length > 0) {
+				key = s.getHash() ^ depth * 0x9E3779B97F4A7C15L;
+				int i = (int) key & mask;
+				long n = counts[i];
+				if ((keys[i] ^ n) == key) {
+					hits.incrementAndGet();
+					return n;
+				}
+			}
+			int[] codes = moves[depth];
+			int n = MoveGenerator.generate(s, codes);
+			if (check) check(codes, n);
+			if (bulk && depth == 1) return n;
+			long total = 0;
+			for (int i = 0; i < n; i++) {
+				s.applyMove(codes[i]);
+				total += count(depth - 1);
+				s.undoMove();
+			}
+			if (depth > 1 && keys.length > 0) {
+				int i = (int) key & mask;
+				counts[i] = total;
+				keys[i] = key ^ total;
+			}
+			return total;
+		}
+
+		/** Throw IllegalStateException if the n moves generated in codes for s are not the ones the rules allow, if the
+		 * tables of Playout count other than n moves, or if making and undoing one of them does not restore s. */
+		private void check(int[] codes, int n) {
+			int[] generated = Arrays.copyOf(codes, n);
+			Arrays.sort(generated);
+			int[] allowed = legalMoves(s);
+			if (!Arrays.equals(generated, allowed)) {
+				throw new IllegalStateException("generated " + movesString(generated) + ", rules allow " +
+						movesString(allowed) + " in\n" + s);
+			}
+			board.load(s);
+			if (board.numMoves() != n) {
+				throw new IllegalStateException("generated " + n + " moves, counted " + board.numMoves() + " in\n" + s);
+			}
+			long hash = s.getHash();
+			for (int i = 0; i < n; i++) {
+				s.applyMove(codes[i]);
+				s.undoMove();
+				if (s.getHash() != hash) {
+					throw new IllegalStateException("undoing " + MoveTable.toString(codes[i]) + " changed\n" + s);
+				}
+			}
+		}
+	}
+
+	/** Return the codes of the moves the rules allow the next player in s, in increasing order, found by trying every
+	 * placement and stack move on a copy of the board. Return none if the game is over.
+	 * Precondition: the game has players */
+	public static int[] legalMoves(State s) {
+		if (s.getStatus(s.getPrevPlayer()) != State.GameStatus.ONGOING) return new int[0];
+		Player p = s.getNextPlayer();
+		Stone.Color c = p.getColor();
+		Board board = s.getBoard();
+		List<Integer> codes = new ArrayList<Integer>();
+		for (int row = 0; row < Board.SIZE; row++) {
+			for (int col = 0; col < Board.SIZE; col++) {
+				String cell = "(" + row + "," + col + ")";
+				if (p.getStones() > 0) {
+					tryPlacement(board, new Stone(c, Stone.Type.REGULAR, Stone.Status.FLAT), "F" + cell, codes);
+					tryPlacement(board, new Stone(c, Stone.Type.REGULAR, Stone.Status.STANDING), "S" + cell, codes);
+				}
+				if (p.getCapstones() > 0) {
+					tryPlacement(board, new Stone(c, Stone.Type.CAPSTONE, Stone.Status.STANDING), "C" + cell, codes);
+				}
+				if (board.topColor(row, col) != c) continue;
+				for (char d : new char[] {'+', '-', '<', '>'}) {
+					for (int n = 1; n <= Board.CARRY_LIMIT; n++) {
+						for (String drops : dropPatterns(n)) {
+							Move m = new Move("M" + cell + d + n + "[" + drops + "]");
+							if (!allowsStackMove(board, m, n)) continue;
+							try {
+								board.clone().moveStack(n, m.getDirection(), m.getDrops(), row, col);
+							} catch (Board.IllegalMove e) {
+								throw new IllegalStateException("Board.moveStack refuses legal move " + m.moveStr() +
+										": " + e.getMessage() + " in\n" + s);
+							}
+							codes.add(toCode(m));
+						}
+					}
+				}
+			}
+		}
+		int[] moves = new int[codes.size()];
+		for (int i = 0; i < moves.length; i++) moves[i] = codes.get(i);
+		Arrays.sort(moves);
+		return moves;
+	}
+
+	/** Return true if the rules allow stack move m, which carries n stones, on board. The stones are read one cell at a
+	 * time with Board.cellContents and Board.topStone, so this does not depend on the tables of MoveTable. */
+	private static boolean allowsStackMove(Board board, Move m, int n) {
+		LinkedList<Stone> carried = board.cellContents(m.getRow(), m.getCol());
+		if (n > Board.CARRY_LIMIT || n > carried.size()) return false;
+		int row = m.getRow();
+		int col = m.getCol();
+		int left = n;
+		for (int drop : m.getDrops()) {
+			switch (m.getDirection()) {
+			case NORTH:
+				row++;
+				break;
+			case WEST:
+				col--;
+				break;
+			case SOUTH:
+				row--;
+				break;
+			case EAST:
+				col++;
+			}
+			if (!BitBoard.isValidCell(row, col)) return false;
+			Stone top = board.topStone(row, col);
+			if (top != null && top.getType() == Stone.Type.CAPSTONE) return false;
+			// only a capstone moving on its own can flatten a standing stone
+			if (top != null && top.getStatus() == Stone.Status.STANDING &&
+					carried.get(left - 1).getType() != Stone.Type.CAPSTONE) {
+				return false;
+			}
+			left -= drop;
+		}
+		return true;
+	}
+
+	/** Add the code of the placement of stone written move to codes if it can be placed on board. */
+	private static void tryPlacement(Board board, Stone stone, String move, List<Integer> codes) {
+		Move m = new Move(move);
+		try {
+			board.clone().addStone(stone, m.getRow(), m.getCol());
+		} catch (Board.IllegalMove e) {
+			return;
+		}
+		codes.add(toCode(m));
+	}
+
+	/** Return the code of m. Throw IllegalStateException if the move cannot be packed into one. */
+	private static int toCode(Move m) {
+		int code = m.toCode();
+		if (code == Move.NO_MOVE) throw new IllegalStateException("no code for legal move " + m.moveStr());
+		return code;
+	}
+
+	/** Return every way to drop n stones one or more at a time on up to Board.SIZE - 1 cells, with the amounts of each
+	 * written as digits. */
+	private static List<String> dropPatterns(int n) {
+		List<String> patterns = new ArrayList<String>();
+		if (n == 0) {
+			patterns.add("");
+			return patterns;
+		}
+		for (int first = 1; first <= n; first++) {
+			for (String rest : dropPatterns(n - first)) {
+				if (rest.length() < Board.SIZE - 1) patterns.add(first + rest);
+			}
+		}
+		return patterns;
+	}
+
+	/** Return the moves with codes codes written as the Move constructor reads them. */
+	private static String movesString(int[] codes) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int code : codes) {
+			if (sb.length() > 1) sb.append(' ');
+			sb.append(MoveTable.toString(code));
+		}
+		return sb.append(']').toString();
+	}
+
+	/** A task counts the positions under one move from the root. */
+	private class Split extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final State s;
+		private final int move;
+		private final int depth;
+
+		private Split(State s, int move, int depth) {
+			this.s = s;
+			this.move = move;
+			this.depth = depth;
+		}
+
+		protected Long compute() {
+			State child = s.clone();
+			child.applyMove(move);
+			return new Counter(child, depth - 1).count(depth - 1);
+		}
+	}
+
+	/** Return the number of positions depth moves from s, with counts[i] set to the number under the ith move from s
+	 * in moves, and split the moves over the threads of pool. s is left unmodified.
+	 * Precondition: depth > 0; moves and counts have room for MoveGenerator.MAX_MOVES entries */
+	public long count(State s, int depth, int[] moves, long[] counts, ForkJoinPool pool) {
+		int n = MoveGenerator.generate(s, moves);
+		List<Split> splits = new ArrayList<Split>(n);
+		for (int i = 0; i < n; i++) splits.add(new Split(s, moves[i], depth));
+		for (Split split : splits) pool.execute(split);
+		long total = 0;
+		for (int i = 0; i < n; i++) {
+			counts[i] = splits.get(i).join();
+			total += counts[i];
+		}
+		return total;
+	}
+
+	/** Return the number of times a count was found in the hash table. */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/** Return the state at the start of a game between two players. */
+	private static State start() {
+		State s = new State();
+		s.addPlayers(new AIPlayer(Stone.Color.WHITE, s, Player.Strategy.RANDOM, 0),
+				new AIPlayer(Stone.Color.BLACK, s, Player.Strategy.RANDOM, 0));
+		return s;
+	}
+
+	/** Count from the start to each depth of KNOWN with perft on threads threads, print the counts, and throw
+	 * IllegalStateException at the first one that differs from KNOWN. */
+	public static void verify(Perft perft, int threads) {
+		State s = start();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		long[] counts = new long[MoveGenerator.MAX_MOVES];
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			for (int depth = 1; depth <= KNOWN.length; depth++) {
+				long total = perft.count(s, depth, moves, counts, pool);
+				if (total != KNOWN[depth-1]) {
+					throw new IllegalStateException("depth " + depth + ": counted " + total + ", expected " +
+							KNOWN[depth-1]);
+				}
+				System.out.println("depth " + depth + ": " + total + " positions, as expected");
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public static void main(String[] args) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int megabytes = 0;
+		boolean bulk = true;
+		boolean table = false;
+		boolean check = false;
+		boolean divide = false;
+		boolean verify = false;
+		int i = 0;
+		for (; i < args.length && args[i].startsWith("-"); i++) {
+			if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-hash")) megabytes = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-nobulk")) bulk = false;
+			else if (args[i].equals("-table")) table = true;
+			else if (args[i].equals("-check")) check = true;
+			else if (args[i].equals("-divide")) divide = true;
+			else if (args[i].equals("-verify")) verify = true;
+			else throw new IllegalArgumentException("unknown option " + args[i]);
+		}
+		if (verify) {
+			verify(new Perft(megabytes, bulk, table, check), threads);
+			return;
+		}
+		if (i == args.length) throw new IllegalArgumentException("usage: java Perft [options] depth [moves]");
+		int depth = Integer.parseInt(args[i++]);
+		if (depth <= 0) throw new IllegalArgumentException("invalid depth");
+		State s = start();
+		for (; i < args.length; i++) s.applyMove(new Move(args[i]));
+
+		Perft perft = new Perft(megabytes, bulk, table, check);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		long[] counts = new long[MoveGenerator.MAX_MOVES];
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long start = System.nanoTime();
+		long total;
+		try {
+			total = perft.count(s, depth, moves, counts, pool);
+		} finally {
+			pool.shutdown();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		if (divide) {
+			int n = MoveGenerator.generate(s, moves);
+			for (int m = 0; m < n; m++) System.out.println(MoveTable.toString(moves[m]) + "\t" + counts[m]);
+		}
+		System.out.println(String.format("depth %d: %d positions in %.3f s, %.0f positions/s, %d table hits", depth,
+				total, seconds, total / seconds, perft.getHits()));
+	}
+
+}
@@ -19,7 +19,9 @@ public abstract class Player {
 		// maximize the number of adjacent pairs of flat controlled cells (allowing double-counting)
 		CLUSTERBUILDER,
 		// combination of clusterbuilder and gatherer, weighing stacks of multiple own more
-		CLUSTERBUILDER_GATHERER
+		CLUSTERBUILDER_GATHERER,
+		// Monte Carlo tree search over random playouts, with no evaluation function
+		MCTS
 	}
 
 	protected int stones;  // # stones in inventory
@@ -64,14 +66,13 @@ public abstract class Player {
 
 	/** Return true if this player owns a stack at (row,col), false otherwise. */
 	public boolean ownsStack(int row, int col) {
-		Stone top = state.getBoard().topStone(row, col);
-		return top != null && top.getColor() == color;
+		return state.getBoard().topColor(row, col) == color;
 	}
 
 	/** Return true if the (row,col) cell is empty or owned by this player. */
 	private boolean canModify(int row, int col) {
-		Stone top = state.getBoard().topStone(row, col);
-		return top == null || top.getColor() == color;
+		Stone.Color top = state.getBoard().topColor(row, col);
+		return top == null || top == color;
 	}
 
 	/** Modify state to make the move m. Throws IllegalMove and keeps the state unmodified if the move is not legal. */
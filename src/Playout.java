@@ -0,0 +1,304 @@
+/** A board for playing games out with uniformly random moves as fast as possible, for Monte Carlo tree search and for
+ * generating data. A random move is drawn straight from the move tables: the legal moves are counted, stack by stack
+ * and direction by direction, without being generated, and only the one that is drawn is looked up. Moves are made in
+ * place and are not undone, the status of the game is worked out from the masks of the cells that changed, and
+ * there is no hash, no groups, and no allocation. A board is loaded again from a State for each game. */
+public class Playout {
+
+	public static final int MAX_PLIES = 1000;  // longest game played by main
+
+	/** MOVES_UP_TO[c][f] is the number of drop patterns of 1 to c stones on 1 to f cells. */
+	private static final int[][] MOVES_UP_TO = new int[Board.CARRY_LIMIT + 1][BitBoard.SIZE];
+
+	/** FLATTENS[c][len] is the number of drop patterns of 1 to c stones on exactly len cells whose last drop is a
+	 * single stone, which are the moves that a capstone can flatten a standing stone with on cell len. */
+	private static final int[][] FLATTENS = new int[Board.CARRY_LIMIT + 1][BitBoard.SIZE];
+
+	static {
+		for (int c = 1; c <= Board.CARRY_LIMIT; c++) {
+			for (int n = 1; n <= c; n++) {
+				for (int[] drops : MoveTable.DROPS[n]) {
+					for (int f = drops.length; f < BitBoard.SIZE; f++) MOVES_UP_TO[c][f]++;
+					if (drops[drops.length - 1] == 1) FLATTENS[c][drops.length]++;
+				}
+			}
+		}
+	}
+
+	private static final int WHITE = 0;
+	private static final int BLACK = 1;
+
+	// the position, packed as in BitBoard
+	private final long[] stacks = new long[BitBoard.NUM_CELLS];
+	private final int[] top = new int[2];  // top[i] is the mask of cells whose top stone has color index i
+	private int standing;
+	private int capstones;
+	private int empty;
+	private final int[] stones = new int[2];     // stones in reserve of the player with each color index
+	private final int[] capstonesLeft = new int[2];
+	private int next;  // color index of the player to move
+	private State.GameStatus status;
+	private int plies;  // moves made since the board was loaded
+
+	// the stack moves of the player to move, in groups of one stack and one direction: group i holds counts[i] moves
+	// of the stack on cell cells[i] in direction directions[i], with free[i] cells before a blocker and a standing
+	// stone its capstone can flatten on cell flattenAt[i], or 0
+	private static final int MAX_GROUPS = BitBoard.NUM_CELLS * MoveTable.NUM_DIRECTIONS;
+	private final int[] counts = new int[MAX_GROUPS];
+	private final int[] cells = new int[MAX_GROUPS];
+	private final int[] directions = new int[MAX_GROUPS];
+	private final int[] free = new int[MAX_GROUPS];
+	private final int[] flattenAt = new int[MAX_GROUPS];
+	private int numGroups;
+	private int placements;  // legal placements of the player to move
+
+	private long seed;  // state of the random number generator
+
+	/** Initialize an empty playout board whose random moves are drawn with seed seed. */
+	public Playout(long seed) {
+		this.seed = seed;
+	}
+
+	/** Set this board to the position of s. */
+	public void load(State s) {
+		BitBoard b = s.getBoard().bits();
+		for (int sq = 0; sq < BitBoard.NUM_CELLS; sq++) stacks[sq] = b.stack(sq);
+		top[WHITE] = b.ownedMask(Stone.Color.WHITE);
+		top[BLACK] = b.ownedMask(Stone.Color.BLACK);
+		standing = b.standingMask();
+		capstones = b.capstoneMask();
+		empty = b.emptyMask();
+		for (int i = WHITE; i <= BLACK; i++) {
+			Player p = s.getPlayer(i == WHITE ? Stone.Color.WHITE : Stone.Color.BLACK);
+			stones[i] = p.getStones();
+			capstonesLeft[i] = p.getCapstones();
+		}
+		next = s.getNextPlayer().getColor() == Stone.Color.WHITE ? WHITE : BLACK;
+		status = s.getStatus(s.getPrevPlayer());
+		plies = 0;
+	}
+
+	/** Return the status of the game on this board, as State.getStatus would. */
+	public State.GameStatus getStatus() {
+		return status;
+	}
+
+	/** Return the number of moves made since this board was loaded. */
+	public int getPlies() {
+		return plies;
+	}
+
+	/** Play random moves until the game is over or maxPlies moves have been made, and return the status of the game.
+	 * A game that is not over by then is decided by the flat count, as if the board were full.
+	 * Precondition: maxPlies >= 0 */
+	public State.GameStatus play(int maxPlies) {
+		for (int i = 0; i < maxPlies && status == State.GameStatus.ONGOING; i++) applyMove(randomMove());
+		return status == State.GameStatus.ONGOING ? flatWinner() : status;
+	}
+
+	/** Return the number of legal moves of the player to move, 0 if the game is over. */
+	public int numMoves() {
+		if (status != State.GameStatus.ONGOING) return 0;
+		int perCell = (stones[next] > 0 ? 2 : 0) + (capstonesLeft[next] > 0 ? 1 : 0);
+		placements = Integer.bitCount(empty) * perCell;
+		int total = placements;
+		numGroups = 0;
+		int blockers = standing | capstones;
+		for (int m = top[next]; m != 0; m &= m - 1) {
+			int sq = Integer.numberOfTrailingZeros(m);
+			int maxCarry = Math.min(Board.CARRY_LIMIT, (int) (stacks[sq] >>> BitBoard.HEIGHT_SHIFT));
+			boolean capstone = (capstones & 1 << sq) != 0;
+			for (int d = 0; d < MoveTable.NUM_DIRECTIONS; d++) {
+				int step = MoveTable.STEPS[d];
+				int distance = MoveTable.DISTANCE[sq][d];
+				int f = 0;
+				while (f < distance && (blockers & 1 << (sq + step * (f+1))) == 0) f++;
+				int flatten = capstone && f < distance && (standing & 1 << (sq + step * (f+1))) != 0 ? f + 1 : 0;
+				int count = MOVES_UP_TO[maxCarry][f] + (flatten != 0 ? FLATTENS[maxCarry][flatten] : 0);
+				if (count == 0) continue;
+				counts[numGroups] = count;
+				cells[numGroups] = sq;
+				directions[numGroups] = d;
+				free[numGroups] = f;
+				flattenAt[numGroups] = flatten;
+				numGroups++;
+				total += count;
+			}
+		}
+		return total;
+	}
+
+	/** Return the code of a legal move of the player to move, with every legal move equally likely.
+	 * Precondition: the game is not over */
+	public int randomMove() {
+		int r = nextInt(numMoves());
+		if (r < placements) {
+			// placements go cell by cell, and the stone types of each cell in the order flat, standing, capstone
+			int perCell = placements / Integer.bitCount(empty);
+			int m = empty;
+			for (int i = r / perCell; i > 0; i--) m &= m - 1;
+			int type = stones[next] > 0 ? r % perCell : MoveTable.CAPSTONE;
+			return MoveTable.code(type, Integer.numberOfTrailingZeros(m));
+		}
+		r -= placements;
+		int g = 0;
+		while (r >= counts[g]) r -= counts[g++];
+		int sq = cells[g];
+		int d = directions[g];
+		int maxCarry = Math.min(Board.CARRY_LIMIT, (int) (stacks[sq] >>> BitBoard.HEIGHT_SHIFT));
+		// the moves of a group are counted in the order that MoveGenerator.generateStackMoves lists them
+		for (int n = 1; n <= maxCarry; n++) {
+			for (int len = 1; len <= free[g] && len <= n; len++) {
+				int[] codes = MoveTable.STACK_MOVES[sq][d][n][len];
+				if (r < codes.length) return codes[r];
+				r -= codes.length;
+			}
+		}
+		for (int n = flattenAt[g]; n <= maxCarry; n++) {
+			int[] codes = MoveGenerator.FLATTEN_MOVES[sq][d][n][flattenAt[g]];
+			if (r < codes.length) return codes[r];
+			r -= codes.length;
+		}
+		throw new IllegalStateException("move count out of step with the move tables");
+	}
+
+	/** Make the move with code code for the player to move.
+	 * Precondition: the move is legal */
+	public void applyMove(int code) {
+		int sq = MoveTable.square(code);
+		int type = MoveTable.type(code);
+		int mover = next;
+		if (type != MoveTable.STACK) {
+			int bit = 1 << sq;
+			stacks[sq] = 1L << BitBoard.HEIGHT_SHIFT | mover;
+			top[mover] |= bit;
+			empty &= ~bit;
+			if (type == MoveTable.CAPSTONE) {
+				capstones |= bit;
+				capstonesLeft[mover]--;
+			} else {
+				if (type == MoveTable.STANDING) standing |= bit;
+				stones[mover]--;
+			}
+		} else {
+			slide(sq, MoveTable.STEPS[MoveTable.direction(code)], MoveTable.carry(code), MoveTable.drops(code));
+		}
+		next = mover ^ 1;
+		plies++;
+		status = statusAfter(mover, type == MoveTable.STACK);
+	}
+
+	/** Move the top n stones of cell sq step cells at a time, dropping drops[i] stones on the ith cell. */
+	private void slide(int sq, int step, int n, int[] drops) {
+		int bit = 1 << sq;
+		long stack = stacks[sq];
+		long carried = stack & ((1L << n) - 1);
+		int carriedCapstone = capstones & bit;
+		int carriedStanding = standing & bit;
+		stacks[sq] = (stack & ~BitBoard.COLOR_BITS) - ((long) n << BitBoard.HEIGHT_SHIFT) |
+				(stack & BitBoard.COLOR_BITS) >>> n;
+		setTop(sq);
+		int to = sq;
+		int left = n;
+		for (int k : drops) {
+			to += step;
+			left -= k;
+			long dropped = carried >>> left & ((1L << k) - 1);
+			long below = stacks[to];
+			stacks[to] = (below & ~BitBoard.COLOR_BITS) + ((long) k << BitBoard.HEIGHT_SHIFT) |
+					(below & BitBoard.COLOR_BITS) << k | dropped;
+			setTop(to);
+		}
+		if (carriedCapstone != 0) capstones |= 1 << to;
+		else if (carriedStanding != 0) standing |= 1 << to;
+	}
+
+	/** Set the masks for cell sq from its stack, with a flat top stone. */
+	private void setTop(int sq) {
+		int bit = 1 << sq;
+		standing &= ~bit;
+		capstones &= ~bit;
+		top[WHITE] &= ~bit;
+		top[BLACK] &= ~bit;
+		long stack = stacks[sq];
+		if (stack == 0) {
+			empty |= bit;
+		} else {
+			top[(int) (stack & 1)] |= bit;
+			empty &= ~bit;
+		}
+	}
+
+	/** Return the status of the game after a move of the player with color index mover, which was a stack move if
+	 * stackMove is true. Only a stack move can complete a road of the other player. */
+	private State.GameStatus statusAfter(int mover, boolean stackMove) {
+		if (hasRoad(mover)) return win(mover);
+		if (stackMove && hasRoad(mover ^ 1)) return win(mover ^ 1);
+		if (empty == 0 || out(WHITE) || out(BLACK)) return flatWinner();
+		return State.GameStatus.ONGOING;
+	}
+
+	/** Return true if the player with color index i has a road. */
+	private boolean hasRoad(int i) {
+		int path = top[i] & ~standing;
+		return Integer.bitCount(path) >= BitBoard.SIZE && BitBoard.hasRoad(path);
+	}
+
+	/** Return true if the player with color index i is out of stones. */
+	private boolean out(int i) {
+		return stones[i] == 0 && capstonesLeft[i] == 0;
+	}
+
+	/** Return the win of the player with color index i. */
+	private static State.GameStatus win(int i) {
+		return i == WHITE ? State.GameStatus.PLAYER1_WIN : State.GameStatus.PLAYER2_WIN;
+	}
+
+	/** Return the result of the game decided by the number of stacks each player owns that are part of a path. */
+	private State.GameStatus flatWinner() {
+		int white = Integer.bitCount(top[WHITE] & ~standing);
+		int black = Integer.bitCount(top[BLACK] & ~standing);
+		return white > black ? win(WHITE) : black > white ? win(BLACK) : State.GameStatus.DRAW;
+	}
+
+	/** Return a random int from 0 to bound - 1, from a SplitMix64 generator.
+	 * Precondition: bound > 0 */
+	private int nextInt(int bound) {
+		seed += 0x9E3779B97F4A7C15L;
+		long z = seed;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z ^= z >>> 31;
+		return (int) ((z >>> 32) * bound >>> 32);
+	}
+
+	/** Play random games from the start for the number of seconds in the first argument, 5 by default, and print how
+	 * many games and plies were played per second. Games are cut off after MAX_PLIES plies. */
+	public static void main(String[] args) {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 5;
+		State start = new State();
+		start.addPlayers(new AIPlayer(Stone.Color.WHITE, start, Player.Strategy.RANDOM, 0),
+				new AIPlayer(Stone.Color.BLACK, start, Player.Strategy.RANDOM, 0));
+		Playout p = new Playout(System.nanoTime());
+		long games = 0;
+		long plies = 0;
+		int[] results = new int[State.GameStatus.values().length];
+		long begin = System.nanoTime();
+		long end = begin + (long) (seconds * 1e9);
+		while (System.nanoTime() < end) {
+			for (int i = 0; i < 1000; i++) {
+				p.load(start);
+				results[p.play(MAX_PLIES).ordinal()]++;
+				plies += p.getPlies();
+				games++;
+			}
+		}
+		double elapsed = (System.nanoTime() - begin) / 1e9;
+		System.out.println(String.format("%d games, %.1f plies per game, %.0f games/s, %.0f plies/s", games,
+				(double) plies / games, games / elapsed, plies / elapsed));
+		for (State.GameStatus gs : State.GameStatus.values()) {
+			if (results[gs.ordinal()] > 0) System.out.println(gs + "\t" + results[gs.ordinal()]);
+		}
+	}
+
+}
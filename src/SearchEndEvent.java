@@ -0,0 +1,53 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A flight recorder event that spans a search of an AIPlayer and is committed as it ends, with its statistics (see
+ * SearchStats and SearchMonitor). Its duration lines it up with the GC pauses and other events during the search. */
+@Name("takbot.SearchEnd")
+@Label("Search End")
+@Category({"Tak", "Search"})
+@Description("An AI player has searched for a move")
+@StackTrace(false)
+public class SearchEndEvent extends jdk.jfr.Event {
+
+	@Label("Color")
+	String color;
+
+	@Label("Strategy")
+	String strategy;
+
+	@Label("Solved")
+	@Description("The move is a forced win found by the tinue solver, so there was no search")
+	boolean solved;
+
+	@Label("Depth")
+	int depth;
+
+	@Label("Nodes")
+	long nodes;
+
+	@Label("Evaluations")
+	long evaluations;
+
+	@Label("Beta Cutoffs")
+	long betaCutoffs;
+
+	@Label("First Move Cutoff Rate")
+	double firstMoveCutoffRate;
+
+	@Label("Table Probes")
+	long tableProbes;
+
+	@Label("Table Hits")
+	long tableHits;
+
+	@Label("Effective Branching Factor")
+	double branchingFactor;
+
+	@Label("Principal Variation")
+	String principalVariation;
+
+}
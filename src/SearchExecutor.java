@@ -0,0 +1,162 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/** Runs the work of AI players on one pool of threads shared by every game in this JVM: the moves, the helper threads
+ * of their searches, and their ponders. A thread that finishes its work waits KEEP_ALIVE_SECONDS for more before it
+ * ends, so a game reuses the same threads from one move to the next. A task never waits for a free thread, since a
+ * search waits for its helpers, which would deadlock on a bounded pool. The threads are daemon threads, so they never
+ * keep the JVM alive, and searches are stopped by asking them to (see AIPlayer.stopSearch) rather than by interrupting
+ * them. */
+public class SearchExecutor {
+
+	public static final long KEEP_ALIVE_SECONDS = 300;
+
+	private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS,
+			TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new DaemonFactory("search"));
+	private static final ScheduledExecutorService TIMER =
+			Executors.newSingleThreadScheduledExecutor(new DaemonFactory("search timer"));
+
+	private SearchExecutor() {
+	}
+
+	/** A factory of daemon threads named after a prefix and a count. */
+	private static class DaemonFactory implements ThreadFactory {
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+
+		private DaemonFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, prefix + " " + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	/** Run task on the pool and return its future. */
+	public static Future<?> submit(Runnable task) {
+		return POOL.submit(task);
+	}
+
+	/** Wait for the task of future to end, for at most millis milliseconds, or for as long as it takes if millis is 0.
+	 * Return true if it has ended. An interrupt ends the wait and is passed on. If the task threw, so does this. */
+	public static boolean await(Future<?> future, long millis) {
+		try {
+			if (millis > 0) future.get(millis, TimeUnit.MILLISECONDS);
+			else future.get();
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/** An instance is a move that an AI player is choosing on the pool. */
+	public static class MoveTask implements Runnable {
+
+		private final AIPlayer player;
+		private final State s;
+		private final IntConsumer done;
+		// the state of the task, guarded by the task: moveNow and cancel only stop the search while it runs, so that a
+		// late call does not stop the next move, and a call before it starts is kept until it does
+		private boolean started;
+		private boolean finished;
+		private boolean cancelled;
+		private boolean stopEarly;
+		private ScheduledFuture<?> deadline;
+
+		private MoveTask(AIPlayer player, State s, IntConsumer done) {
+			this.player = player;
+			this.s = s;
+			this.done = done;
+		}
+
+		public void run() {
+			synchronized (this) {
+				if (cancelled) return;
+				started = true;
+				if (stopEarly) player.stopSearch();
+			}
+			int code;
+			try {
+				code = player.think(s);
+			} finally {
+				synchronized (this) {
+					finished = true;
+					if (deadline != null) deadline.cancel(false);
+				}
+			}
+			// a ponder started by a cancelled move would wait for a move that will not come
+			if (isCancelled()) player.stopPondering();
+			else done.accept(code);
+		}
+
+		/** Make the player choose its move now, from what its search has found so far. */
+		public synchronized void moveNow() {
+			if (!started) stopEarly = true;
+			else if (!finished) player.stopSearch();
+		}
+
+		/** Make the player choose its move millis milliseconds from now at the latest, or earlier by its own budget. */
+		public synchronized void setDeadline(long millis) {
+			if (finished) return;
+			if (deadline != null) deadline.cancel(false);
+			deadline = TIMER.schedule(new Runnable() {
+				public void run() {
+					moveNow();
+				}
+			}, millis, TimeUnit.MILLISECONDS);
+		}
+
+		/** Stop the search and throw away its move, so that the task ends soon without making one, and stop the
+		 * ponder of the player, if any. */
+		public void cancel() {
+			synchronized (this) {
+				cancelled = true;
+				if (started && !finished) player.stopSearch();
+				if (deadline != null) deadline.cancel(false);
+			}
+			player.stopPondering();
+		}
+
+		public synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		/** Return true if the move has been chosen or the task was cancelled before it started. */
+		public synchronized boolean isDone() {
+			return finished || cancelled && !started;
+		}
+	}
+
+	/** Start player choosing its move in s with AIPlayer.think, and return the task. Unless the task is cancelled
+	 * first, done is given the code of the move on the thread of the task, which makes it on the thread that owns the
+	 * state of the game.
+	 * Precondition: s is a copy of the state of the game that no other thread uses; as for AIPlayer.think */
+	public static MoveTask think(AIPlayer player, State s, IntConsumer done) {
+		MoveTask task = new MoveTask(player, s, done);
+		// an exception in the move goes to the handler of the thread, as it would on a thread of its own
+		POOL.execute(task);
+		return task;
+	}
+
+}
@@ -0,0 +1,163 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/** Publishes the statistics of the searches of every AIPlayer in this JVM: as a JMX MBean named NAME, registered with
+ * the platform MBean server when the first search starts, and as the JFR events SearchStartEvent and SearchEndEvent,
+ * which a flight recording only keeps if they are enabled in it. Monitoring costs a few objects per move and never
+ * stops a search: if the MBean can't be registered, the statistics are still kept and returned by AIPlayer. */
+public class SearchMonitor implements SearchMonitorMXBean {
+
+	public static final String NAME = "takbot:type=Search";
+
+	private static final SearchMonitor INSTANCE = new SearchMonitor();
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(NAME));
+		} catch (JMException | SecurityException e) {
+			// monitoring is optional, so a JVM without it still plays
+		}
+	}
+
+	private final AtomicLong searches = new AtomicLong();
+	private final AtomicLong totalNodes = new AtomicLong();
+	private volatile SearchStats last;
+
+	private SearchMonitor() {
+	}
+
+	/** Record that a search described by stats is starting to depth at most maxDepth, with a time budget of
+	 * budgetMillis milliseconds, 0 if there is none. Return the event of its end, which end commits. */
+	public static SearchEndEvent start(SearchStats stats, int maxDepth, long budgetMillis) {
+		SearchStartEvent started = new SearchStartEvent();
+		if (started.shouldCommit()) {
+			started.color = stats.color.toString();
+			started.strategy = stats.strategy.toString();
+			started.threads = stats.threads;
+			started.maxDepth = maxDepth;
+			started.budget = budgetMillis;
+			started.commit();
+		}
+		SearchEndEvent event = new SearchEndEvent();
+		event.begin();
+		return event;
+	}
+
+	/** Record that the search described by stats, which was started with start, has ended, and commit its event. */
+	public static void end(SearchEndEvent event, SearchStats stats) {
+		INSTANCE.searches.incrementAndGet();
+		INSTANCE.totalNodes.addAndGet(stats.nodes);
+		INSTANCE.last = stats;
+		event.end();
+		if (event.shouldCommit()) {
+			event.color = stats.color.toString();
+			event.strategy = stats.strategy.toString();
+			event.solved = stats.solved;
+			event.depth = stats.depth;
+			event.nodes = stats.nodes;
+			event.evaluations = stats.evaluations;
+			event.betaCutoffs = stats.betaCutoffs;
+			event.firstMoveCutoffRate = stats.firstMoveCutoffRate();
+			event.tableProbes = stats.tableProbes;
+			event.tableHits = stats.tableHits;
+			event.branchingFactor = stats.effectiveBranchingFactor();
+			event.principalVariation = stats.principalVariationString();
+			event.commit();
+		}
+	}
+
+	/** Return the monitor of this JVM. */
+	public static SearchMonitor get() {
+		return INSTANCE;
+	}
+
+	/** Return the statistics of the most recent search of any player, null if there has been none. */
+	public SearchStats getLast() {
+		return last;
+	}
+
+	public long getSearches() {
+		return searches.get();
+	}
+
+	public long getTotalNodes() {
+		return totalNodes.get();
+	}
+
+	public String getLastColor() {
+		SearchStats s = last;
+		return s == null ? "" : s.color.toString();
+	}
+
+	public String getLastStrategy() {
+		SearchStats s = last;
+		return s == null ? "" : s.strategy.toString();
+	}
+
+	public int getLastDepth() {
+		SearchStats s = last;
+		return s == null ? 0 : s.depth;
+	}
+
+	public double getLastMillis() {
+		SearchStats s = last;
+		return s == null ? 0 : s.nanos / 1e6;
+	}
+
+	public long getLastNodes() {
+		SearchStats s = last;
+		return s == null ? 0 : s.nodes;
+	}
+
+	public double getLastNodesPerSecond() {
+		SearchStats s = last;
+		return s == null ? 0 : s.nodesPerSecond();
+	}
+
+	public long getLastEvaluations() {
+		SearchStats s = last;
+		return s == null ? 0 : s.evaluations;
+	}
+
+	public long getLastBetaCutoffs() {
+		SearchStats s = last;
+		return s == null ? 0 : s.betaCutoffs;
+	}
+
+	public double getLastFirstMoveCutoffRate() {
+		SearchStats s = last;
+		return s == null ? 0 : s.firstMoveCutoffRate();
+	}
+
+	public long getLastTableProbes() {
+		SearchStats s = last;
+		return s == null ? 0 : s.tableProbes;
+	}
+
+	public double getLastTableHitRate() {
+		SearchStats s = last;
+		return s == null ? 0 : s.tableHitRate();
+	}
+
+	public double getLastEffectiveBranchingFactor() {
+		SearchStats s = last;
+		return s == null ? 0 : s.effectiveBranchingFactor();
+	}
+
+	public double[] getLastIterationMillis() {
+		SearchStats s = last;
+		if (s == null) return new double[0];
+		double[] millis = new double[s.iterationNanos.length];
+		for (int i = 0; i < millis.length; i++) millis[i] = s.iterationNanos[i] / 1e6;
+		return millis;
+	}
+
+	public String getLastPrincipalVariation() {
+		SearchStats s = last;
+		return s == null ? "" : s.principalVariationString();
+	}
+
+}
@@ -0,0 +1,40 @@
+/** The management interface of SearchMonitor, which JMX clients such as JConsole see under SearchMonitor.NAME. The
+ * attributes named Last describe the most recent search of any player, and are 0 or empty before the first one. */
+public interface SearchMonitorMXBean {
+
+	/** Return the number of searches so far. */
+	long getSearches();
+
+	/** Return the number of nodes visited by all searches so far. */
+	long getTotalNodes();
+
+	String getLastColor();
+
+	String getLastStrategy();
+
+	int getLastDepth();
+
+	double getLastMillis();
+
+	long getLastNodes();
+
+	double getLastNodesPerSecond();
+
+	long getLastEvaluations();
+
+	long getLastBetaCutoffs();
+
+	double getLastFirstMoveCutoffRate();
+
+	long getLastTableProbes();
+
+	double getLastTableHitRate();
+
+	double getLastEffectiveBranchingFactor();
+
+	/** Return the time in milliseconds that each completed iteration of the most recent search took. */
+	double[] getLastIterationMillis();
+
+	String getLastPrincipalVariation();
+
+}
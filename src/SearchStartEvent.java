@@ -0,0 +1,32 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** A flight recorder event committed as an AIPlayer starts a search (see SearchMonitor). */
+@Name("takbot.SearchStart")
+@Label("Search Start")
+@Category({"Tak", "Search"})
+@Description("An AI player starts searching for a move")
+@StackTrace(false)
+public class SearchStartEvent extends jdk.jfr.Event {
+
+	@Label("Color")
+	String color;
+
+	@Label("Strategy")
+	String strategy;
+
+	@Label("Threads")
+	int threads;
+
+	@Label("Maximum Depth")
+	int maxDepth;
+
+	@Label("Time Budget")
+	@Timespan(Timespan.MILLISECONDS)
+	long budget;
+
+}
@@ -0,0 +1,71 @@
+/** An instance holds the statistics of one move chosen by AIPlayer.search. The counts are summed over the threads of
+ * the search, except the counts of each iteration, which are those of the main thread alone, since the helpers do not
+ * deepen in step with it. An instance is filled in as its search ends and is not changed after that. */
+public class SearchStats {
+
+	public final Stone.Color color;            // color of the player that searched
+	public final Player.Strategy strategy;     // strategy of the player that searched
+	public final int threads;                  // threads that searched
+	public boolean solved;                     // true if the tinue solver found a forced win, so there was no search
+	public int depth;                          // depth of the deepest completed iteration
+	public double value;                       // value of the deepest completed iteration for the player
+	public long nanos;                         // time the whole search took
+	public long nodes;                         // nodes visited, including the ones past the horizon
+	public long quiescenceNodes;               // nodes visited past the horizon
+	public long evaluations;                   // positions evaluated
+	public long betaCutoffs;                   // nodes cut off by one of their moves
+	public long firstMoveCutoffs;              // nodes cut off by the first move searched
+	public long tableProbes;                   // probes of the transposition table
+	public long tableHits;                     // probes that found an entry
+	public long[] iterationNodes = new long[0];  // iterationNodes[d-1] is the nodes iteration d visited
+	public long[] iterationNanos = new long[0];  // iterationNanos[d-1] is the time iteration d took
+	public int[] principalVariation = new int[0];  // codes of the best line found, starting with the move chosen
+
+	public SearchStats(Stone.Color color, Player.Strategy strategy, int threads) {
+		this.color = color;
+		this.strategy = strategy;
+		this.threads = threads;
+	}
+
+	/** Return the nodes visited per second. */
+	public double nodesPerSecond() {
+		return nodes * 1e9 / Math.max(1, nanos);
+	}
+
+	/** Return the fraction of the cutoffs that the first move searched made, which is how often the move ordering put
+	 * a move that was good enough first. Return 0 if there were no cutoffs. */
+	public double firstMoveCutoffRate() {
+		return betaCutoffs == 0 ? 0 : (double) firstMoveCutoffs / betaCutoffs;
+	}
+
+	/** Return the fraction of the probes of the transposition table that found an entry, 0 if there were none. */
+	public double tableHitRate() {
+		return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+	}
+
+	/** Return the effective branching factor, which is how many times more nodes the deepest completed iteration
+	 * visited than the one before it. Return 0 if fewer than two iterations completed. */
+	public double effectiveBranchingFactor() {
+		int n = iterationNodes.length;
+		return n < 2 ? 0 : (double) iterationNodes[n-1] / Math.max(1, iterationNodes[n-2]);
+	}
+
+	/** Return the principal variation in the notation of the Move constructor, with the moves separated by spaces. */
+	public String principalVariationString() {
+		StringBuilder sb = new StringBuilder();
+		for (int code : principalVariation) {
+			if (sb.length() > 0) sb.append(' ');
+			sb.append(MoveTable.toString(code));
+		}
+		return sb.toString();
+	}
+
+	public String toString() {
+		if (solved) return color + " " + strategy + ": tinue " + principalVariationString();
+		return String.format("%s %s: depth %d, value %.1f, %d nodes in %.1f ms (%.0f/s), %d evaluations, " +
+				"%.0f%% first move cutoffs, %.0f%% table hits, branching %.2f, pv %s", color, strategy, depth, value,
+				nodes, nanos / 1e6, nodesPerSecond(), evaluations, 100 * firstMoveCutoffRate(), 100 * tableHitRate(),
+				effectiveBranchingFactor(), principalVariationString());
+	}
+
+}
@@ -14,12 +14,12 @@ public class Start extends JFrame {
 
 	public static final String[] STRATEGIES1 = new String[]
 			{"<html><p style=\"color:red\">-Select Player 1 (White)-</p></html>", "Human", "Random", "Selfish",
-			"Attacker", "SelfishAttacker", "Gatherer", "ClusterBuilder", "ClusterBuilderGatherer"};
+			"Attacker", "SelfishAttacker", "Gatherer", "ClusterBuilder", "ClusterBuilderGatherer", "MCTS"};
 	public static final String[] DEPTH1 = new String[]
 			{"-Select Player 1 Depth-", "1", "2", "3", "4", "5"};
 	public static final String[] STRATEGIES2 = new String[]
 			{"<html><p style=\"color:red\">-Select Player 2 (Black)-</p></html>", "Human", "Random", "Selfish",
-			"Attacker", "SelfishAttacker", "Gatherer", "ClusterBuilder", "ClusterBuilderGatherer"};
+			"Attacker", "SelfishAttacker", "Gatherer", "ClusterBuilder", "ClusterBuilderGatherer", "MCTS"};
 	public static final String[] DEPTH2 = new String[]
 			{"-Select Player 2 Depth-", "1", "2", "3", "4", "5"};
 	public static final Font TEXT_FONT = new Font("Arial", Font.BOLD, 15);
@@ -28,13 +28,14 @@ public class Start extends JFrame {
 	JComboBox<String> player1Depth;
 	JComboBox<String> player2Strategy;
 	JComboBox<String> player2Depth;
+	JCheckBox ponder;
 	JButton start;
 
 
 	public Start() {
 		setTitle("TakBot by Aohan Dang");
 		setIconImage(new ImageIcon(getClass().getResource("/resources/Icon.png")).getImage());
-		setLayout(new GridLayout(5,1));
+		setLayout(new GridLayout(6,1));
 
 		player1Strategy = new JComboBox<String>(STRATEGIES1);
 		player1Strategy.setForeground(Color.BLACK);
@@ -96,6 +97,12 @@ public class Start extends JFrame {
 		});
 		add(player2Depth);
 
+		ponder = new JCheckBox("AI thinks on the opponent's time");
+		ponder.setForeground(Color.BLACK);
+		ponder.setFont(TEXT_FONT);
+		ponder.setBackground(Color.WHITE);
+		add(ponder);
+
 		start = new JButton("Start Tak");
 		start.setForeground(Color.BLACK);
 		start.setFont(TEXT_FONT);
@@ -118,7 +125,7 @@ public class Start extends JFrame {
 				} catch (NumberFormatException ex) {
 					p2depth = 0;
 				}
-				Tak.startGame(p1type, p1depth, p2type, p2depth);
+				Tak.startGame(p1type, p1depth, 0, p2type, p2depth, 0, ponder.isSelected());
 				dispose();
 			}
 		});
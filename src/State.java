@@ -1,7 +1,5 @@
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /** A State represents the game state, which includes the inventory of each player along with the board state. */
 public class State implements Cloneable {
@@ -18,6 +16,11 @@ public class State implements Cloneable {
 	private Player nextPlayer;            // player that goes next
 	private ArrayList<String> allMoves;   // array of all moves made so far, represented as strings
 
+	// codes of the moves made with applyMove that have not been undone yet, allocated on first use
+	private static final int UNDO_CAPACITY = 32;
+	private int[] undoCodes;
+	private int numUndo;
+
 	public Board getBoard() {
 		return board;
 	}
@@ -122,59 +125,132 @@ public class State implements Cloneable {
 		return gs;
 	}
 
-	/** Swap the next player. */
-	public void swapNextPlayer() {
-		nextPlayer = nextPlayer == player1 ? player2 : player1;
+	/** Have the next player make the move m in place, so that it can be reverted with undoMove. Allocation of move
+	 * history is skipped, so getLastMove and getAllMoves do not include m. Throws IllegalMove and keeps this state
+	 * unmodified if the move is not legal. */
+	public void applyMove(Move m) {
+		int code = m.toCode();
+		if (code == Move.NO_MOVE) throw new Board.IllegalMove("Unsupported move " + m.moveStr());
+		applyMove(code);
 	}
 
-	/** Return true if there is a path from start to anything in ends in graph, false otherwise. This function uses
-	 * depth-first search.
-	 * Precondition: graph has a copy of start and end. */
-	private static boolean hasPath(HashMap<Pair,HashSet<Pair>> graph, Pair start, HashSet<Pair> ends) {
-		HashSet<Pair> explored = new HashSet<Pair>();
-		LinkedList<Pair> frontier = new LinkedList<Pair>();
-		frontier.add(start);
-		while (!frontier.isEmpty()) {
-			Pair node = frontier.pop();
-			explored.add(node);
-			for (Pair child : graph.get(node)) {
-				if (!explored.contains(child) && !frontier.contains(child)) {
-					if (ends.contains(child)) return true;
-					frontier.addFirst(child);
-				}
+	/** Have the next player make the move with code code in place, so that it can be reverted with undoMove. Throws
+	 * IllegalMove and keeps this state unmodified if the move is not legal. */
+	public void applyMove(int code) {
+		if (!MoveTable.isValid(code)) throw new Board.IllegalMove("Invalid move code " + code);
+		BitBoard b = board.bits();
+		Stone.Color c = nextPlayer.getColor();
+		int sq = MoveTable.square(code);
+		int type = MoveTable.type(code);
+		switch (type) {
+		case MoveTable.FLAT:
+		case MoveTable.STANDING:
+			if (nextPlayer.stones == 0) throw new Board.IllegalMove("no more regular stones");
+			addStone(b, c, type, sq);
+			nextPlayer.stones--;
+			break;
+		case MoveTable.CAPSTONE:
+			if (nextPlayer.capstones == 0) throw new Board.IllegalMove("no more capstones");
+			addStone(b, c, type, sq);
+			nextPlayer.capstones--;
+			break;
+		default:
+			if ((b.ownedMask(c.other()) & 1 << sq) != 0) throw new Board.IllegalMove("you can't move the stack here");
+			int d = MoveTable.direction(code);
+			int cells = MoveTable.drops(code).length + 1;
+			if (cells - 1 > MoveTable.DISTANCE[sq][d]) throw new Board.IllegalMove("Out of bounds");
+			b.save(sq, MoveTable.STEPS[d], cells);
+			try {
+				b.moveStack(code);
+			} catch (Board.IllegalMove e) {
+				b.discard();
+				throw e;
 			}
 		}
-		return false;
+		if (undoCodes == null || numUndo == undoCodes.length) {
+			undoCodes = undoCodes == null ? new int[UNDO_CAPACITY] : Arrays.copyOf(undoCodes, 2 * numUndo);
+		}
+		undoCodes[numUndo++] = code;
+		swapNextPlayer();
+		plies++;
 	}
 
-	/** Return true if player p has a bridge on the board, false otherwise. */
-	private boolean hasBridge(Player p) {
-		// get graph representation of cells owned by next player
-		HashMap<Pair,HashSet<Pair>> graph = board.toGraph(p.getColor());
-
-		// search for horizontal bridge
-		HashSet<Pair> startLeft = new HashSet<Pair>();
-		HashSet<Pair> endRight = new HashSet<Pair>();
-		for (int i = 0; i < Board.SIZE; i++) {
-			startLeft.add(new Pair(i, 0));
-			endRight.add(new Pair(i, Board.SIZE-1));
-		}
-		for (Pair start : startLeft) {
-			if (hasPath(graph, start, endRight)) return true;
+	/** Add a stone of color c and type type to cell sq of b, saving a record to undo it. Throws IllegalMove and throws
+	 * away the record if this is not possible. */
+	private static void addStone(BitBoard b, Stone.Color c, int type, int sq) {
+		b.save(sq, 0, 1);
+		try {
+			b.addStone(c, type, sq);
+		} catch (Board.IllegalMove e) {
+			b.discard();
+			throw e;
 		}
+	}
 
-		// search for vertical bridge
-		HashSet<Pair> startBottom = new HashSet<Pair>();
-		HashSet<Pair> endTop = new HashSet<Pair>();
-		for (int i = 0; i < Board.SIZE; i++) {
-			startBottom.add(new Pair(0, i));
-			endTop.add(new Pair(Board.SIZE-1, i));
+	/** Revert the most recent move made with applyMove.
+	 * Precondition: a move made with applyMove has not yet been reverted */
+	public void undoMove() {
+		plies--;
+		swapNextPlayer();
+		switch (MoveTable.type(undoCodes[--numUndo])) {
+		case MoveTable.FLAT:
+		case MoveTable.STANDING:
+			nextPlayer.stones++;
+			break;
+		case MoveTable.CAPSTONE:
+			nextPlayer.capstones++;
+			break;
+		default:
+			break;
 		}
-		for (Pair start : startBottom) {
-			if (hasPath(graph, start, endTop)) return true;
+		board.bits().undo();
+	}
+
+	/** Pass the turn to the other player without moving, which is not a legal move of the game but lets a search ask
+	 * what the other player could do if it were their move. Until it is reverted, getLastMoveCode returns
+	 * Move.NO_MOVE. */
+	public void applyNullMove() {
+		if (undoCodes == null || numUndo == undoCodes.length) {
+			undoCodes = undoCodes == null ? new int[UNDO_CAPACITY] : Arrays.copyOf(undoCodes, 2 * numUndo);
 		}
+		undoCodes[numUndo++] = Move.NO_MOVE;
+		swapNextPlayer();
+		plies++;
+	}
+
+	/** Revert the most recent pass made with applyNullMove.
+	 * Precondition: a pass made with applyNullMove is the most recent move that has not yet been reverted */
+	public void undoNullMove() {
+		plies--;
+		swapNextPlayer();
+		numUndo--;
+	}
+
+	/** Return the code of the most recent move made with applyMove that has not been reverted, Move.NO_MOVE if there
+	 * is none. */
+	public int getLastMoveCode() {
+		return numUndo == 0 ? Move.NO_MOVE : undoCodes[numUndo - 1];
+	}
+
+	/** Return the Zobrist hash of this state. It covers the stacks on the board and the type of their top stones, the
+	 * reserves of both players, and the player to move. The board part is kept up to date as stones are added and
+	 * moved, so this takes constant time. */
+	public long getHash() {
+		long h = board.bits().hash() ^
+				Zobrist.reserves(player1.getColor(), player1.stones, player1.capstones) ^
+				Zobrist.reserves(player2.getColor(), player2.stones, player2.capstones);
+		if (nextPlayer == player2) h ^= Zobrist.BLACK_TO_MOVE;
+		return h;
+	}
 
-		return false;
+	/** Swap the next player. */
+	public void swapNextPlayer() {
+		nextPlayer = nextPlayer == player1 ? player2 : player1;
+	}
+
+	/** Return true if player p has a bridge on the board, false otherwise. */
+	private boolean hasBridge(Player p) {
+		return board.bits().hasRoad(p.getColor());
 	}
 
 	/** Return the status of this game, where p is the last player that played. */
@@ -2,11 +2,14 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.function.IntConsumer;
 import java.util.concurrent.TimeUnit;
 
 import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
+import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -26,6 +29,7 @@ public class StatusGUI extends JPanel {
 	public static final Border TEXTFIELD_BORDER = new LineBorder(Color.BLACK, 1);
 	public static final int PADDING = 15;
 	public static final Color PLIES_COLOR = new Color(0, 0, 102);
+	public static final int DEADLINE_FACTOR = 2;  // an AI move with a time budget is stopped after this many budgets
 	
 	private Tak tak;
 	private State state;
@@ -38,6 +42,7 @@ public class StatusGUI extends JPanel {
 	private JLabel lastMove;
 	private boolean gameOver;
 	private AbstractAction action;
+	private SearchExecutor.MoveTask task; // move the next player is choosing, null if it is not an AI player
 
 	/** Return the text that is currently in the text field. */
 	public String getText() {
@@ -167,6 +172,9 @@ public class StatusGUI extends JPanel {
 		if (gameOver) {
 			textField.setEditable(false);
 			textField.removeActionListener(action);
+			// no move will come to end a ponder now
+			if (state.getPlayer1() instanceof AIPlayer) ((AIPlayer) state.getPlayer1()).stopPondering();
+			if (state.getPlayer2() instanceof AIPlayer) ((AIPlayer) state.getPlayer2()).stopPondering();
 		}
 		add(textField);
 
@@ -180,22 +188,60 @@ public class StatusGUI extends JPanel {
 		repaint();
 		textField.requestFocusInWindow();
 
-		/** Start new thread for AI player to do its thing if game is not already over. */
+		/** Have the AI player choose its move on the search executor if game is not already over. The AI thinks on a
+		 * copy of the state, so that the state of the game is only read and changed on this thread. */
+		task = null;
 		if (state.getNextPlayer() instanceof AIPlayer &&
 				(state.getStatus(state.getPrevPlayer()) == State.GameStatus.ONGOING)) {
-			new Thread(new Runnable() {
-				public void run() {
-					autoMove();
-				}
-			}).start();
+			autoMove((AIPlayer) state.getNextPlayer(), state.clone());
 		}
 	}
 
-	/** Trigger the next player to move automatically.
-	 * Precondition: the next player is an AIPlayer and the game is not yet over */
-	private void autoMove() {
-		if (!(state.getNextPlayer() instanceof AIPlayer)) throw new RuntimeException("can't autostart human player");
-		State.GameStatus gs = state.makeMove(this);
+	/** Stop the move an AI player is choosing without making it, and stop the ponders of the AI players, so that no
+	 * search of this game goes on once it is closed. */
+	public void close() {
+		gameOver = true;
+		if (task != null && !task.isDone()) task.cancel();
+		if (state.getPlayer1() instanceof AIPlayer) ((AIPlayer) state.getPlayer1()).stopPondering();
+		if (state.getPlayer2() instanceof AIPlayer) ((AIPlayer) state.getPlayer2()).stopPondering();
+	}
+
+	/** Have player choose its move in snapshot, a copy of the state of the game, and make it on the event dispatch
+	 * thread. Add a button that makes the player move now, with the best move its search has found so far. If the
+	 * player has a time budget, it is made to move after DEADLINE_FACTOR times the budget at the latest.
+	 * Precondition: player is the next player and the game is not yet over */
+	private void autoMove(final AIPlayer player, State snapshot) {
+		long budget = player.getTimeBudget();
+		final SearchExecutor.MoveTask move = SearchExecutor.think(player, snapshot, new IntConsumer() {
+			public void accept(final int code) {
+				SwingUtilities.invokeLater(new Runnable () {
+					public void run() {
+						makeAIMove(player, code);
+					}
+				});
+			}
+		});
+		task = move;
+		// the search keeps to its budget on its own, but the tinue solver and the end of a ponder do not check it
+		if (budget > 0) move.setDeadline(DEADLINE_FACTOR * budget);
+
+		JButton moveNow = new JButton("Move Now");
+		moveNow.setFont(PLAYER_FONT);
+		moveNow.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				move.moveNow();
+			}
+		});
+		add(moveNow);
+		revalidate();
+	}
+
+	/** Make the move of code that player chose, unless the game was closed while it was choosing.
+	 * Precondition: called on the event dispatch thread */
+	private void makeAIMove(AIPlayer player, int code) {
+		if (gameOver) return;
+		player.setNextMove(code);
+		State.GameStatus gs = state.makeMove(StatusGUI.this);
 		switch (gs) {
 		case PLAYER1_WIN:
 			statusMsg = "Player 1 Wins";
@@ -214,13 +260,9 @@ public class StatusGUI extends JPanel {
 		default:
 			statusMsg = "Internal Error for AI Move";
 		}
-		SwingUtilities.invokeLater(new Runnable () {
-			public void run() {
-				tak.updateBoard();
-				tak.updateStack();
-				updateStatus();
-			}
-		});
+		tak.updateBoard();
+		tak.updateStack();
+		updateStatus();
 	}
 
 }
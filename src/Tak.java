@@ -46,9 +46,10 @@ public class Tak extends JFrame {
 		setLayout(new GridBagLayout());
 		GridBagConstraints c = new GridBagConstraints();
 
-		// write to log file on close
+		// stop the searches and write to log file on close
 		addWindowListener(new WindowAdapter() {
 			public void windowClosing(WindowEvent e) {
+				statusGUI.close();
 				createLogFile();
 			}
 		});
@@ -80,7 +81,8 @@ public class Tak extends JFrame {
 		this.logPath = logPath;
 	}
 
-	/** Write information to log file if specified log path is not null, then quit. */
+	/** Write information to log file if specified log path is not null, then close the window. The threads of the
+	 * search executor are daemon threads, so the JVM exits once no window is left. */
 	private void createLogFile() {
 		if (logPath != null) {
 			try {
@@ -93,7 +95,6 @@ public class Tak extends JFrame {
 			}
 		}
 		dispose();
-		System.exit(0);
 	}
 
 	/* Update the stack by having it display the stack at (row,col). */
@@ -147,6 +148,14 @@ public class Tak extends JFrame {
 
 	/** Start a game. */
 	public static void startGame(String p1type, int p1depth, String p2type, int p2depth) {
+		startGame(p1type, p1depth, 0, p2type, p2depth, 0, false);
+	}
+
+	/** Start a game in which each AI player with a time budget above 0 gets that many milliseconds per move, and AI
+	 * players ponder on the time of the other player if ponder is true. An MCTS player without a time budget runs
+	 * AIPlayer.PLAYOUTS_PER_LEVEL playouts per move for each level of its depth. */
+	public static void startGame(String p1type, int p1depth, long p1millis, String p2type, int p2depth, long p2millis,
+			boolean ponder) {
 		State s = new State();
 		Player p1, p2;
 		switch (p1type) {
@@ -174,6 +183,9 @@ public class Tak extends JFrame {
 		case "ClusterBuilderGatherer":
 			p1 = new AIPlayer(Stone.Color.WHITE, s, Player.Strategy.CLUSTERBUILDER_GATHERER, p1depth);
 			break;
+		case "MCTS":
+			p1 = new AIPlayer(Stone.Color.WHITE, s, Player.Strategy.MCTS, p1depth);
+			break;
 		default:
 			throw new IllegalArgumentException("invalid player1 type");
 		}
@@ -202,9 +214,16 @@ public class Tak extends JFrame {
 		case "ClusterBuilderGatherer":
 			p2 = new AIPlayer(Stone.Color.BLACK, s, Player.Strategy.CLUSTERBUILDER_GATHERER, p2depth);
 			break;
+		case "MCTS":
+			p2 = new AIPlayer(Stone.Color.BLACK, s, Player.Strategy.MCTS, p2depth);
+			break;
 		default:
 			throw new IllegalArgumentException("invalid player2 type");
 		}
+		if (p1 instanceof AIPlayer && p1millis > 0) ((AIPlayer) p1).setMoveTime(p1millis);
+		if (p2 instanceof AIPlayer && p2millis > 0) ((AIPlayer) p2).setMoveTime(p2millis);
+		if (p1 instanceof AIPlayer) ((AIPlayer) p1).setPonder(ponder);
+		if (p2 instanceof AIPlayer) ((AIPlayer) p2).setPonder(ponder);
 		s.addPlayers(p1, p2);
 		SwingUtilities.invokeLater(new Runnable() {
 			public void run() {
@@ -0,0 +1,250 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/** Proves or disproves that the next player of a state has a forced road win, or tinue, using proof-number search.
+ * The player to move is the attacker. The attacker only tries moves that win or leave a road that can be completed
+ * with one placement, and the defender tries every move, so a win that is proven is a real one, while a win through
+ * other moves is not looked for. The tree is kept in arrays whose size is the node limit, so a solver uses a fixed
+ * amount of memory that is allocated once.
+ *
+ * Acknowledgment: proof-number search is described in "Proof-Number Search" by Allis, van der Meulen, and van den Herik
+ * (Artificial Intelligence 66, 1994). */
+public class TinueSolver {
+
+	/** Result of a search */
+	public static enum Result {
+		TINUE,     // the attacker has a forced road win
+		NO_TINUE,  // the attacker has no forced road win within the ply limit through moves that threaten roads
+		UNKNOWN    // the node limit was reached first
+	}
+
+	private static final int INFINITY = Integer.MAX_VALUE / 2;  // proof or disproof number of a solved node
+
+	private final int maxNodes;  // most nodes in the tree
+	private final int maxPlies;  // most plies from the root to a node
+
+	// the tree: node i was reached by move[i] from parent[i], and its children are firstChild[i] and their siblings
+	private final int[] move;
+	private final int[] parent;
+	private final int[] firstChild;   // -1 if the node has not been expanded
+	private final int[] nextSibling;  // -1 for the last child
+	private final int[] proof;        // proof number: least number of leaves that must be proven to prove this node
+	private final int[] disproof;     // disproof number: least number of leaves to disprove to disprove this node
+	private int numNodes;
+
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+	private Stone.Color attacker;
+	private int bestMove = Move.NO_MOVE;
+
+	/** Initialize a solver that searches at most maxNodes nodes, none of them more than maxPlies plies from the root.
+	 * Precondition: maxNodes > 0; maxPlies > 0 */
+	public TinueSolver(int maxNodes, int maxPlies) {
+		if (maxNodes <= 0 || maxPlies <= 0) throw new IllegalArgumentException("invalid solver limits");
+		this.maxNodes = maxNodes;
+		this.maxPlies = maxPlies;
+		move = new int[maxNodes];
+		parent = new int[maxNodes];
+		firstChild = new int[maxNodes];
+		nextSibling = new int[maxNodes];
+		proof = new int[maxNodes];
+		disproof = new int[maxNodes];
+	}
+
+	/** Return whether the next player in s has a forced road win. Moves are made on s and undone again, so s is
+	 * unmodified when this returns. If the result is TINUE, getBestMove returns the first move of the win.
+	 * Precondition: the game is not over in s */
+	public Result solve(State s) {
+		attacker = s.getNextPlayer().getColor();
+		bestMove = Move.NO_MOVE;
+		numNodes = 0;
+		int root = newNode(Move.NO_MOVE, -1);
+		evaluate(s, root, 0);
+		while (proof[root] != 0 && disproof[root] != 0) {
+			// walk down to the most proving node
+			int node = root;
+			int ply = 0;
+			while (firstChild[node] != -1) {
+				node = select(node, ply);
+				s.applyMove(move[node]);
+				ply++;
+			}
+			boolean expanded = expand(s, node, ply);
+			// bring the numbers up to date on the way back to the root
+			while (node != root) {
+				update(node, ply);
+				s.undoMove();
+				node = parent[node];
+				ply--;
+			}
+			update(root, 0);
+			if (!expanded) break;
+		}
+		if (proof[root] == 0) {
+			for (int child = firstChild[root]; child != -1; child = nextSibling[child]) {
+				if (proof[child] == 0) bestMove = move[child];
+			}
+			// a root that is proven without children is a road the attacker can complete at once
+			if (bestMove == Move.NO_MOVE) bestMove = roadMove(s);
+			return Result.TINUE;
+		}
+		return disproof[root] == 0 ? Result.NO_TINUE : Result.UNKNOWN;
+	}
+
+	/** Return the code of the first move of the win found by the last call of solve, Move.NO_MOVE if it did not find
+	 * one. */
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	/** Return the number of nodes in the tree of the last call of solve. */
+	public int getNodes() {
+		return numNodes;
+	}
+
+	/** Return a new node reached by move m from parent p, with proof and disproof numbers of 1. */
+	private int newNode(int m, int p) {
+		int node = numNodes++;
+		move[node] = m;
+		parent[node] = p;
+		firstChild[node] = -1;
+		nextSibling[node] = -1;
+		proof[node] = 1;
+		disproof[node] = 1;
+		return node;
+	}
+
+	/** Return true if the attacker is to move at ply ply. */
+	private static boolean attacking(int ply) {
+		return ply % 2 == 0;
+	}
+
+	/** Return the child of node at ply ply that is most worth searching: the one with the least proof number if the
+	 * attacker is to move, and the one with the least disproof number if the defender is. */
+	private int select(int node, int ply) {
+		int best = -1;
+		for (int child = firstChild[node]; child != -1; child = nextSibling[child]) {
+			if (best == -1 || (attacking(ply) ? proof[child] < proof[best] : disproof[child] < disproof[best])) {
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	/** Set the numbers of node at ply ply from those of its children, if it has been expanded. */
+	private void update(int node, int ply) {
+		if (firstChild[node] == -1) return;
+		int min = INFINITY;
+		int sum = 0;
+		for (int child = firstChild[node]; child != -1; child = nextSibling[child]) {
+			min = Math.min(min, attacking(ply) ? proof[child] : disproof[child]);
+			sum = Math.min(INFINITY, sum + (attacking(ply) ? disproof[child] : proof[child]));
+		}
+		if (attacking(ply)) {
+			proof[node] = min;
+			disproof[node] = sum;
+		} else {
+			proof[node] = sum;
+			disproof[node] = min;
+		}
+	}
+
+	/** Mark node as proven if proven is true, and as disproven if not. */
+	private void solved(int node, boolean proven) {
+		proof[node] = proven ? 0 : INFINITY;
+		disproof[node] = proven ? INFINITY : 0;
+	}
+
+	/** Set the numbers of node at ply ply, which s is at, from what can be seen without expanding it. */
+	private void evaluate(State s, int node, int ply) {
+		State.GameStatus gs = s.getStatus(s.getPrevPlayer());
+		if (gs != State.GameStatus.ONGOING) {
+			State.GameStatus win = attacker == Stone.Color.WHITE ? State.GameStatus.PLAYER1_WIN :
+				State.GameStatus.PLAYER2_WIN;
+			solved(node, gs == win);
+		} else if (roadMove(s) != Move.NO_MOVE) {
+			// whoever is to move completes a road
+			solved(node, attacking(ply));
+		} else if (ply >= maxPlies) {
+			solved(node, false);
+		}
+	}
+
+	/** Return the code of a placement that completes a road for the next player in s, Move.NO_MOVE if there is
+	 * none. */
+	private static int roadMove(State s) {
+		Player p = s.getNextPlayer();
+		if (p.isOut()) return Move.NO_MOVE;
+		int cells = s.getBoard().bits().roadCells(p.getColor());
+		if (cells == 0) return Move.NO_MOVE;
+		int type = p.getStones() > 0 ? MoveTable.FLAT : MoveTable.CAPSTONE;
+		return MoveTable.code(type, Integer.numberOfTrailingZeros(cells));
+	}
+
+	/** Add the children of node at ply ply, which s is at, and return true. The attacker's moves are only kept if
+	 * they win or threaten to complete a road with the next placement. Return false and leave node unexpanded if there
+	 * is no room for its children. */
+	private boolean expand(State s, int node, int ply) {
+		int n = MoveGenerator.generate(s, moves);
+		if (numNodes + n > maxNodes) return false;
+		int last = -1;
+		for (int i = 0; i < n; i++) {
+			s.applyMove(moves[i]);
+			boolean keep = !attacking(ply) || s.getStatus(s.getPrevPlayer()) != State.GameStatus.ONGOING ||
+					threatens(s);
+			if (keep) {
+				int child = newNode(moves[i], node);
+				evaluate(s, child, ply + 1);
+				if (last == -1) firstChild[node] = child;
+				else nextSibling[last] = child;
+				last = child;
+			}
+			s.undoMove();
+		}
+		// a node without children is lost for the player to move: no threats for the attacker, no moves for the defender
+		if (last == -1) solved(node, !attacking(ply));
+		return true;
+	}
+
+	/** Return true if the attacker, who just moved in s, could complete a road with a placement next. */
+	private boolean threatens(State s) {
+		Player p = s.getPrevPlayer();
+		return !p.isOut() && s.getBoard().bits().roadCells(p.getColor()) != 0;
+	}
+
+	/** Look for tinue in every position of the game logs named by args, as written by Tak, and print one line for each
+	 * position where the player to move has it. The options -nodes and -plies set the limits of the solver. */
+	public static void main(String[] args) throws IOException {
+		int maxNodes = 200000;
+		int maxPlies = 9;
+		int i = 0;
+		for (; i < args.length && args[i].startsWith("-"); i += 2) {
+			if (args[i].equals("-nodes")) maxNodes = Integer.parseInt(args[i+1]);
+			else if (args[i].equals("-plies")) maxPlies = Integer.parseInt(args[i+1]);
+			else throw new IllegalArgumentException("unknown option " + args[i]);
+		}
+		TinueSolver solver = new TinueSolver(maxNodes, maxPlies);
+		System.out.println("log\tply\tplayer\tresult\tmove\tnodes");
+		for (; i < args.length; i++) {
+			State s = new State();
+			s.addPlayers(new HumanPlayer(Stone.Color.WHITE, s, Player.Strategy.HUMAN, 0),
+					new HumanPlayer(Stone.Color.BLACK, s, Player.Strategy.HUMAN, 0));
+			BufferedReader in = new BufferedReader(new FileReader(args[i]));
+			try {
+				for (String line = in.readLine(); line != null; line = in.readLine()) {
+					if (s.getStatus(s.getPrevPlayer()) != State.GameStatus.ONGOING) break;
+					Result r = solver.solve(s);
+					if (r == Result.TINUE) {
+						System.out.println(args[i] + "\t" + s.getPlies() + "\t" + s.getNextPlayer().getColor() + "\t" + r +
+								"\t" + MoveTable.toString(solver.getBestMove()) + "\t" + solver.getNodes());
+					}
+					if (!line.startsWith("Player")) break;
+					s.applyMove(new Move(line.substring(line.indexOf('\t') + 1).trim()));
+				}
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,269 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Plays a match between two AI configurations without a window, with many games at once. Run it as
+ * "java Tournament [options] A B", where A and B are written STRATEGY[:depth][@millis], for example
+ * "CLUSTERBUILDER_GATHERER:4" or "MCTS:1@500". The options are:
+ *
+ *   -games N     number of games, DEFAULT_GAMES by default
+ *   -threads N   number of games played at once, the number of cores by default
+ *   -opening N   number of random moves that start each game, DEFAULT_OPENING_PLIES by default
+ *   -plies N     number of moves after which a game is stopped and counted as a draw, DEFAULT_MAX_PLIES by default
+ *   -hash N      megabytes of the transposition table of each player, DEFAULT_TABLE_MEGABYTES by default
+ *   -seed N      seed of the random openings
+ *   -out FILE    file the results are written to, DEFAULT_OUT by default
+ *
+ * Games are played in pairs that start from the same random opening, with A playing white in the first game of the
+ * pair and black in the second, so that neither side gains from a lucky opening or from moving first. A line is
+ * written to the results file as each game ends, with its result, its length, and the time each move took, and a
+ * summary with the score of A and the difference in Elo it implies is printed at the end. */
+public class Tournament {
+
+	public static final int DEFAULT_GAMES = 100;
+	public static final int DEFAULT_OPENING_PLIES = 2;
+	public static final int DEFAULT_MAX_PLIES = 300;
+	public static final int DEFAULT_TABLE_MEGABYTES = 16;
+	public static final String DEFAULT_OUT = "tournament.tsv";
+
+	/** An instance describes how one side of a match plays. */
+	public static class Config {
+		public final Player.Strategy strategy;
+		public final int depth;
+		public final long moveMillis;  // time budget of each move, 0 for none
+
+		public Config(Player.Strategy strategy, int depth, long moveMillis) {
+			if (strategy == Player.Strategy.HUMAN) throw new IllegalArgumentException("a match needs AI players");
+			if (depth < 0 || moveMillis < 0) throw new IllegalArgumentException("invalid configuration");
+			this.strategy = strategy;
+			this.depth = depth;
+			this.moveMillis = moveMillis;
+		}
+
+		/** Return the configuration written spec, in the form STRATEGY[:depth][@millis]. The depth is 1 if it is not
+		 * given, and there is no time budget if the milliseconds are not given. */
+		public static Config parse(String spec) {
+			int at = spec.indexOf('@');
+			long millis = at < 0 ? 0 : Long.parseLong(spec.substring(at + 1));
+			String rest = at < 0 ? spec : spec.substring(0, at);
+			int colon = rest.indexOf(':');
+			int depth = colon < 0 ? 1 : Integer.parseInt(rest.substring(colon + 1));
+			String name = colon < 0 ? rest : rest.substring(0, colon);
+			return new Config(Player.Strategy.valueOf(name.toUpperCase()), depth, millis);
+		}
+
+		/** Return a new player with color c in s that plays by this configuration. */
+		public AIPlayer newPlayer(Stone.Color c, State s, int tableMegabytes) {
+			AIPlayer p = new AIPlayer(c, s, strategy, depth);
+			p.setMoveTime(moveMillis);
+			p.setTableMegabytes(tableMegabytes);
+			return p;
+		}
+
+		public String toString() {
+			return strategy + ":" + depth + (moveMillis > 0 ? "@" + moveMillis : "");
+		}
+	}
+
+	/** An instance holds the outcome of one game. */
+	public static class Game {
+		public final int number;         // index of the game in the match
+		public final boolean aIsWhite;  // true if A played white
+		public State.GameStatus status;  // ONGOING if the game was stopped at the ply limit
+		public int plies;                // moves made after the opening
+		public long[] nanos;             // nanos[i] is the time the ith move after the opening took
+
+		public Game(int number, boolean aIsWhite) {
+			this.number = number;
+			this.aIsWhite = aIsWhite;
+		}
+
+		/** Return the points A scored: 1 for a win, 1/2 for a draw or a stopped game, and 0 for a loss. */
+		public double scoreA() {
+			switch (status) {
+			case PLAYER1_WIN:
+				return aIsWhite ? 1 : 0;
+			case PLAYER2_WIN:
+				return aIsWhite ? 0 : 1;
+			default:
+				return 0.5;
+			}
+		}
+	}
+
+	private final Config a;
+	private final Config b;
+	private int openingPlies = DEFAULT_OPENING_PLIES;
+	private int maxPlies = DEFAULT_MAX_PLIES;
+	private int tableMegabytes = DEFAULT_TABLE_MEGABYTES;
+	private long seed = 20160401;
+
+	/** Initialize a match between configurations a and b. */
+	public Tournament(Config a, Config b) {
+		this.a = a;
+		this.b = b;
+	}
+
+	/** Return the codes of the openingPlies random moves that game number game starts with, which are the same for both
+	 * games of a pair. Openings that end the game are drawn again. */
+	private int[] opening(int game) {
+		Random random = new Random(seed + game / 2);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int[] opening = new int[openingPlies];
+		while (true) {
+			State s = new State();
+			s.addPlayers(new AIPlayer(Stone.Color.WHITE, s, Player.Strategy.RANDOM, 0),
+					new AIPlayer(Stone.Color.BLACK, s, Player.Strategy.RANDOM, 0));
+			for (int i = 0; i < openingPlies && s.getStatus(s.getPrevPlayer()) == State.GameStatus.ONGOING; i++) {
+				opening[i] = moves[random.nextInt(MoveGenerator.generate(s, moves))];
+				s.applyMove(opening[i]);
+			}
+			if (s.getStatus(s.getPrevPlayer()) == State.GameStatus.ONGOING) return opening;
+		}
+	}
+
+	/** Play game number game and return its outcome. */
+	public Game play(int game) {
+		Game g = new Game(game, game % 2 == 0);
+		State s = new State();
+		Config white = g.aIsWhite ? a : b;
+		Config black = g.aIsWhite ? b : a;
+		s.addPlayers(white.newPlayer(Stone.Color.WHITE, s, tableMegabytes),
+				black.newPlayer(Stone.Color.BLACK, s, tableMegabytes));
+		for (int code : opening(game)) s.applyMove(code);
+		g.nanos = new long[maxPlies];
+		g.status = State.GameStatus.ONGOING;
+		while (g.status == State.GameStatus.ONGOING && g.plies < maxPlies) {
+			AIPlayer p = (AIPlayer) s.getNextPlayer();
+			long start = System.nanoTime();
+			int code = p.chooseMove(s);
+			g.nanos[g.plies++] = System.nanoTime() - start;
+			s.applyMove(code);
+			g.status = s.getStatus(s.getPrevPlayer());
+		}
+		return g;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		System.setProperty("java.awt.headless", "true");
+		int games = DEFAULT_GAMES;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String out = DEFAULT_OUT;
+		int openingPlies = DEFAULT_OPENING_PLIES;
+		int maxPlies = DEFAULT_MAX_PLIES;
+		int tableMegabytes = DEFAULT_TABLE_MEGABYTES;
+		Long seed = null;
+		int i = 0;
+		for (; i < args.length && args[i].startsWith("-"); i += 2) {
+			if (args[i].equals("-games")) games = Integer.parseInt(args[i+1]);
+			else if (args[i].equals("-threads")) threads = Integer.parseInt(args[i+1]);
+			else if (args[i].equals("-opening")) openingPlies = Integer.parseInt(args[i+1]);
+			else if (args[i].equals("-plies")) maxPlies = Integer.parseInt(args[i+1]);
+			else if (args[i].equals("-hash")) tableMegabytes = Integer.parseInt(args[i+1]);
+			else if (args[i].equals("-seed")) seed = Long.parseLong(args[i+1]);
+			else if (args[i].equals("-out")) out = args[i+1];
+			else throw new IllegalArgumentException("unknown option " + args[i]);
+		}
+		if (args.length - i != 2) throw new IllegalArgumentException("usage: java Tournament [options] A B");
+		final Tournament t = new Tournament(Config.parse(args[i]), Config.parse(args[i+1]));
+		t.openingPlies = openingPlies;
+		t.maxPlies = maxPlies;
+		t.tableMegabytes = tableMegabytes;
+		if (seed != null) t.seed = seed;
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CompletionService<Game> done = new ExecutorCompletionService<Game>(pool);
+		for (int game = 0; game < games; game++) {
+			final int number = game;
+			done.submit(new Callable<Game>() {
+				public Game call() {
+					return t.play(number);
+				}
+			});
+		}
+		PrintWriter results = new PrintWriter(new FileWriter(out));
+		int[] wdl = new int[3];
+		double points = 0;
+		double squares = 0;
+		try {
+			results.println("# A = " + t.a + ", B = " + t.b + ", seed " + t.seed);
+			results.println("game\twhite\tblack\tresult\tscoreA\tplies\tmeanMsA\tmaxMsA\tmeanMsB\tmaxMsB\tmoveMs");
+			for (int n = 0; n < games; n++) {
+				Game g = done.take().get();
+				double score = g.scoreA();
+				points += score;
+				squares += score * score;
+				wdl[score == 1 ? 0 : score == 0.5 ? 1 : 2]++;
+				results.println(t.line(g));
+				results.flush();
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException("a game failed", e.getCause());
+		} finally {
+			results.close();
+			pool.shutdownNow();
+		}
+		double score = points / games;
+		// the error of the score is that of the mean of the points of each game
+		double error = 1.96 * Math.sqrt(Math.max(0, squares / games - score * score) / games);
+		String summary = String.format("%s vs %s: +%d =%d -%d, score %.3f +- %.3f, Elo ", t.a, t.b, wdl[0], wdl[1],
+				wdl[2], score, error);
+		if (score <= 0 || score >= 1) {
+			// a shutout only bounds the difference: it is at least what it would be had half a game gone the other way
+			double bound = score <= 0 ? 0.5 / games : 1 - 0.5 / games;
+			summary += String.format("%s%+.0f", score <= 0 ? "<= " : ">= ", elo(bound));
+		} else {
+			summary += String.format("%+.0f", elo(score));
+			// the margin has no finite Elo bound once the range of the score reaches 0 or 1
+			if (score - error <= 0 || score + error >= 1) summary += " +- unbounded";
+			else summary += String.format(" +- %.0f", (elo(score + error) - elo(score - error)) / 2);
+		}
+		System.out.println(summary);
+	}
+
+	/** Return the line of the results file for g. */
+	private String line(Game g) {
+		StringBuilder moves = new StringBuilder();
+		long sumA = 0;
+		long maxA = 0;
+		int movesA = 0;
+		long sumB = 0;
+		long maxB = 0;
+		for (int i = 0; i < g.plies; i++) {
+			// white makes the moves with an even number of plies before them
+			boolean byA = ((i + openingPlies) % 2 == 0) == g.aIsWhite;
+			long nanos = g.nanos[i];
+			if (byA) {
+				sumA += nanos;
+				maxA = Math.max(maxA, nanos);
+				movesA++;
+			} else {
+				sumB += nanos;
+				maxB = Math.max(maxB, nanos);
+			}
+			if (i > 0) moves.append(',');
+			moves.append(String.format("%.1f", nanos / 1e6));
+		}
+		int movesB = g.plies - movesA;
+		String result = g.status == State.GameStatus.PLAYER1_WIN ? "1-0" : g.status == State.GameStatus.PLAYER2_WIN ?
+				"0-1" : g.status == State.GameStatus.DRAW ? "1/2-1/2" : "*";
+		String latency = String.format("%.1f\t%.1f\t%.1f\t%.1f", sumA / 1e6 / Math.max(1, movesA), maxA / 1e6,
+				sumB / 1e6 / Math.max(1, movesB), maxB / 1e6);
+		return g.number + "\t" + (g.aIsWhite ? "A" : "B") + "\t" + (g.aIsWhite ? "B" : "A") + "\t" + result + "\t" +
+				g.scoreA() + "\t" + g.plies + "\t" + latency + "\t" + moves;
+	}
+
+	/** Return the difference in Elo that the score score implies.
+	 * Precondition: 0 < score < 1 */
+	private static double elo(double score) {
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+}
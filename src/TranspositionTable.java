@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/** A fixed-size table of search results keyed by the Zobrist hash of a position. Each bucket has two entries: the
+ * first is only replaced by a result searched at least as deep, and the second is always replaced. Entries are kept
+ * in primitive arrays so that probing and storing do not allocate.
+ * 
+ * Several threads may probe and store at once without locks. The score, move, depth, and bound of an entry are packed
+ * into one long, and the key is stored XORed with it. A probe only matches if the two longs it reads belong together,
+ * so an entry that is torn by two threads writing at once reads as a miss rather than as wrong data. The counters are
+ * not synchronized, so they are approximate while more than one thread is searching. */
+public class TranspositionTable {
+
+	/** Bound types of a stored score */
+	public static final byte EXACT = 0;  // the score is the value of the position
+	public static final byte LOWER = 1;  // the value of the position is at least the score
+	public static final byte UPPER = 2;  // the value of the position is at most the score
+
+	// bytes used by one entry: key and packed data
+	public static final int ENTRY_BYTES = 8 + 8;
+	public static final int BUCKET_SIZE = 2;
+
+	// layout of the packed data: score bits, then move, then depth + 1 (where 0 means unused), then bound
+	private static final int MOVE_SHIFT = 32;
+	private static final int DEPTH_SHIFT = 48;
+	private static final int BOUND_SHIFT = 56;
+	private static final int NO_MOVE_BITS = Move.NO_MOVE & 0xFFFF;  // never a valid code, since its cell is 31
+
+	private final long[] keys;  // key XOR data of each entry
+	private final long[] data;  // packed data of each entry, 0 if the entry is unused
+	private final int bucketMask;
+
+	private long hits;        // probes that found the key
+	private long misses;      // probes that did not find the key
+	private long collisions;  // misses where the bucket was filled by other keys
+
+	/** Initialize an empty table that uses at most megabytes megabytes.
+	 * Precondition: megabytes > 0 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes <= 0) throw new IllegalArgumentException("invalid table size");
+		long buckets = (long) megabytes * 1024 * 1024 / (ENTRY_BYTES * BUCKET_SIZE);
+		int numBuckets = Integer.highestOneBit((int) Math.min(buckets, 1 << 30));
+		bucketMask = numBuckets - 1;
+		keys = new long[numBuckets * BUCKET_SIZE];
+		data = new long[keys.length];
+	}
+
+	/** Return the index of the first entry of the bucket for key. */
+	private int bucket(long key) {
+		return ((int) (key ^ key >>> 32) & bucketMask) * BUCKET_SIZE;
+	}
+
+	/** Return the packed data of the entry for key, 0 if there is none. Read it with depth, score, bound, and move. */
+	public long probe(long key) {
+		int i = bucket(key);
+		boolean filled = false;
+		for (int j = i; j < i + BUCKET_SIZE; j++) {
+			long d = data[j];
+			if (d != 0 && (keys[j] ^ d) == key) {
+				hits++;
+				return d;
+			}
+			filled |= d != 0;
+		}
+		misses++;
+		if (filled) collisions++;
+		return 0;
+	}
+
+	/** Return the depth that the entry with packed data entry was searched to. */
+	public static int depth(long entry) {
+		return (int) (entry >>> DEPTH_SHIFT & 0xFF) - 1;
+	}
+
+	/** Return the score of the entry with packed data entry. */
+	public static float score(long entry) {
+		return Float.intBitsToFloat((int) entry);
+	}
+
+	/** Return the bound type of the score of the entry with packed data entry. */
+	public static byte bound(long entry) {
+		return (byte) (entry >>> BOUND_SHIFT);
+	}
+
+	/** Return the code of the best move of the entry with packed data entry, Move.NO_MOVE if there is none. */
+	public static int move(long entry) {
+		int move = (int) (entry >>> MOVE_SHIFT & 0xFFFF);
+		return move == NO_MOVE_BITS ? Move.NO_MOVE : move;
+	}
+
+	/** Store the result of searching the position with hash key to depth depth. The entry of the same key is updated
+	 * if there is one. Otherwise the depth-preferred entry is used if depth is at least as deep as what it holds, and
+	 * the always-replace entry is used if not. A key never fills both entries of its bucket: if the result moves up
+	 * into the depth-preferred entry, its old entry in the always-replace one is cleared. */
+	public void store(long key, int depth, byte bound, float score, int move) {
+		int i = bucket(key);
+		long first = data[i];
+		long second = data[i+1];
+		boolean inFirst = first != 0 && (keys[i] ^ first) == key;
+		boolean inSecond = !inFirst && second != 0 && (keys[i+1] ^ second) == key;
+		int j = inFirst || depth >= depth(first) ? i : i + 1;
+		// keep the old best move if this search did not find one
+		if (move == Move.NO_MOVE && (inFirst || inSecond)) move = move(inFirst ? first : second);
+		if (inSecond && j == i) data[i+1] = 0;
+		long d = Float.floatToRawIntBits(score) & 0xFFFFFFFFL |
+				(long) (move & NO_MOVE_BITS) << MOVE_SHIFT |
+				(long) (Math.min(depth, Byte.MAX_VALUE - 1) + 1) << DEPTH_SHIFT |
+				(long) bound << BOUND_SHIFT;
+		keys[j] = key ^ d;
+		data[j] = d;
+	}
+
+	/** Remove every entry from this table and reset the counters. */
+	public void clear() {
+		Arrays.fill(data, 0);
+		hits = 0;
+		misses = 0;
+		collisions = 0;
+	}
+
+	/** Return the number of entries this table can hold. */
+	public int capacity() {
+		return keys.length;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getCollisions() {
+		return collisions;
+	}
+
+}
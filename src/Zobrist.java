@@ -0,0 +1,55 @@
+import java.util.Random;
+
+/** Random keys for Zobrist hashing of Tak positions. The hash of a position is the XOR of the keys of every stone at
+ * its height in its cell, the type of every top stone that is not flat, the reserves of each player, and the player to
+ * move. Changing any of those changes the hash by XORing the keys in and out, so it can be kept up to date as moves
+ * are made. The keys come from a fixed seed so that hashes are the same in every run. */
+public class Zobrist {
+
+	private static final long SEED = 0x5441_4B5A_4F42_5253L;
+
+	// key of a stone of each color at each height (from the bottom) in each cell
+	private static final long[] STONES = new long[BitBoard.NUM_CELLS * BitBoard.MAX_HEIGHT * 2];
+	// key of a top stone that is a standing stone or a capstone in each cell
+	private static final long[] STANDING = new long[BitBoard.NUM_CELLS];
+	private static final long[] CAPSTONE = new long[BitBoard.NUM_CELLS];
+	// key of each number of stones and capstones left in the reserve of each color
+	private static final long[] RESERVE_STONES = new long[2 * (Player.NUM_STONES + 1)];
+	private static final long[] RESERVE_CAPSTONES = new long[2 * (Player.NUM_CAPSTONES + 1)];
+	/** Key that is included when black is the player to move. */
+	public static final long BLACK_TO_MOVE;
+
+	static {
+		Random r = new Random(SEED);
+		for (int i = 0; i < STONES.length; i++) STONES[i] = r.nextLong();
+		for (int i = 0; i < STANDING.length; i++) STANDING[i] = r.nextLong();
+		for (int i = 0; i < CAPSTONE.length; i++) CAPSTONE[i] = r.nextLong();
+		for (int i = 0; i < RESERVE_STONES.length; i++) RESERVE_STONES[i] = r.nextLong();
+		for (int i = 0; i < RESERVE_CAPSTONES.length; i++) RESERVE_CAPSTONES[i] = r.nextLong();
+		BLACK_TO_MOVE = r.nextLong();
+	}
+
+	/** Return the key of a stone whose color index is color (0 for white, 1 for black) at height i from the bottom of
+	 * cell sq. */
+	public static long stone(int sq, int i, int color) {
+		return STONES[(sq * BitBoard.MAX_HEIGHT + i) * 2 + color];
+	}
+
+	/** Return the key of a standing stone on top of cell sq. */
+	public static long standing(int sq) {
+		return STANDING[sq];
+	}
+
+	/** Return the key of a capstone on top of cell sq. */
+	public static long capstone(int sq) {
+		return CAPSTONE[sq];
+	}
+
+	/** Return the key of the player with color c having stones stones and capstones capstones in reserve. */
+	public static long reserves(Stone.Color c, int stones, int capstones) {
+		int color = c == Stone.Color.WHITE ? 0 : 1;
+		return RESERVE_STONES[color * (Player.NUM_STONES + 1) + stones] ^
+				RESERVE_CAPSTONES[color * (Player.NUM_CAPSTONES + 1) + capstones];
+	}
+
+}